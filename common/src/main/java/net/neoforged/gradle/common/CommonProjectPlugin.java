@@ -19,6 +19,9 @@ import net.neoforged.gradle.common.runtime.definition.CommonRuntimeDefinition;
 import net.neoforged.gradle.common.runtime.extensions.RuntimesExtension;
 import net.neoforged.gradle.common.runtime.naming.OfficialNamingChannelConfigurator;
 import net.neoforged.gradle.common.services.caching.CachedExecutionService;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.services.metadata.MinecraftArtifactCacheService;
 import net.neoforged.gradle.common.tasks.CleanCache;
 import net.neoforged.gradle.common.tasks.DisplayMappingsLicenseTask;
 import net.neoforged.gradle.common.util.ConfigurationUtils;
@@ -51,6 +54,7 @@ public class CommonProjectPlugin implements Plugin<Project> {
 
     public static final String PROBLEM_NAMESPACE = "neoforged.gradle";
     public static final String PROBLEM_REPORTER_EXTENSION_NAME = "neogradleProblems";
+    public static final String FILE_HASH_CACHE_PROPERTY = FileHashCacheService.ENABLED_PROPERTY;
 
     private final Problems problems;
 
@@ -69,6 +73,11 @@ public class CommonProjectPlugin implements Plugin<Project> {
 
         //Register the services
         CachedExecutionService.register(project);
+        //The persistent file hash cache prevents rehashing of unchanged (large) files across builds.
+        //The services and tasks which hash files take it as a parameter, or through a service reference.
+        FileHashCacheService.register(project);
+        MinecraftArtifactCacheService.register(project);
+        ParallelExecutionService.register(project);
 
         // Apply both the idea and eclipse IDE plugins
         project.getPluginManager().apply(IdeaPlugin.class);
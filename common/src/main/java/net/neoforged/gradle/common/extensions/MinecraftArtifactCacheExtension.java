@@ -1,22 +1,17 @@
 package net.neoforged.gradle.common.extensions;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import net.minecraftforge.gdi.ConfigurableDSLElement;
+import net.neoforged.gradle.common.services.metadata.MinecraftArtifactCacheService;
 import net.neoforged.gradle.common.tasks.MinecraftVersionManifestFileCacheProvider;
 import net.neoforged.gradle.common.util.FileCacheUtils;
-import net.neoforged.gradle.common.util.FileDownloadingUtils;
 import net.neoforged.gradle.common.util.MinecraftArtifactType;
-import net.neoforged.gradle.common.util.SerializationUtils;
 import net.neoforged.gradle.dsl.common.extensions.MinecraftArtifactCache;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.util.CacheFileSelector;
 import net.neoforged.gradle.dsl.common.util.DistributionType;
 import net.neoforged.gradle.dsl.common.util.GameArtifact;
 import net.neoforged.gradle.dsl.common.util.MinecraftVersionAndUrl;
-import net.neoforged.gradle.util.HashFunction;
-import net.neoforged.gradle.util.UrlConstants;
 import org.gradle.api.Project;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.Provider;
@@ -25,18 +20,28 @@ import org.jetbrains.annotations.NotNull;
 
 import javax.inject.Inject;
 import java.io.File;
-import java.io.IOException;
 import java.net.URL;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The project facing view of the {@link MinecraftArtifactCacheService}.
+ * <p>
+ * The artifacts themselves are keyed by game version and downloaded at most once per build into the store of the service.
+ * The dsl hands out task providers for them, and those can only belong to a single project, so every project still gets
+ * its own (cheap) providing tasks, which link the shared files into the project instead of downloading them.
+ */
 public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSLElement<MinecraftArtifactCache>, MinecraftArtifactCache {
 
     private final Project project;
     private final Map<CacheFileSelector, File> cacheFiles;
+    private final Provider<MinecraftArtifactCacheService> artifactCache;
 
+    /**
+     * Identifies the providing tasks of a game version, task providers are bound to a project so it is part of the key.
+     */
     private static final class TaskKey{
         private final Project project;
         private final String gameVersion;
@@ -67,9 +72,9 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
     public MinecraftArtifactCacheExtension(Project project) {
         this.project = project;
         this.cacheFiles = new ConcurrentHashMap<>();
+        this.artifactCache = MinecraftArtifactCacheService.register(project);
 
-        //TODO: Move this to gradle user home.
-        this.getCacheDirectory().fileProvider(project.provider(() -> new File(project.getGradle().getGradleUserHomeDir(), "caches/minecraft")));
+        this.getCacheDirectory().fileProvider(project.provider(() -> new File(project.getGradle().getGradleUserHomeDir(), MinecraftArtifactCacheService.DIRECTORY_NAME)));
         this.getCacheDirectory().finalizeValueOnRead();
     }
 
@@ -110,7 +115,7 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
 
     @Override
     public final File cacheLauncherMetadata() {
-        return this.cache(UrlConstants.MOJANG_MANIFEST, CacheFileSelector.launcherMetadata());
+        return record(CacheFileSelector.launcherMetadata(), artifactCache.get().cacheLauncherMetadata());
     }
 
     @Override
@@ -123,8 +128,7 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
     }
 
     public final File cacheVersionManifest(MinecraftVersionAndUrl resolvedVersion) {
-        final CacheFileSelector cacheFileSelector = CacheFileSelector.forVersionJson(resolvedVersion.getVersion());
-        return this.cacheFiles.computeIfAbsent(cacheFileSelector, selector -> downloadVersionManifestToCache(project, getCacheDirectory().get().getAsFile(), resolvedVersion.getVersion()));
+        return record(CacheFileSelector.forVersionJson(resolvedVersion.getVersion()), artifactCache.get().cacheVersionManifest(resolvedVersion));
     }
 
     @Override
@@ -132,7 +136,7 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
         final MinecraftVersionAndUrl resolvedVersion = resolveVersion(gameVersion);
 
         final CacheFileSelector cacheFileSelector = CacheFileSelector.forVersionJar(resolvedVersion.getVersion(), side.getName());
-        return this.cacheFiles.computeIfAbsent(cacheFileSelector, selector -> downloadVersionArtifactToCache(project, getCacheDirectory().get().getAsFile(), resolvedVersion.getVersion(), side));
+        return record(cacheFileSelector, artifactCache.get().cacheVersionDownload(resolvedVersion, side.getName(), cacheFileSelector));
     }
 
     @Override
@@ -140,7 +144,7 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
         final MinecraftVersionAndUrl resolvedVersion = resolveVersion(gameVersion);
 
         final CacheFileSelector cacheFileSelector = CacheFileSelector.forVersionMappings(resolvedVersion.getVersion(), side.getName());
-        return this.cacheFiles.computeIfAbsent(cacheFileSelector, selector -> downloadVersionMappingsToCache(project, getCacheDirectory().get().getAsFile(), resolvedVersion.getVersion(), side));
+        return record(cacheFileSelector, artifactCache.get().cacheVersionDownload(resolvedVersion, String.format("%s_mappings", side.getName()), cacheFileSelector));
     }
 
     @Override
@@ -150,107 +154,17 @@ public abstract class MinecraftArtifactCacheExtension implements ConfigurableDSL
 
     @Override
     public final File cache(final String url, final CacheFileSelector selector) {
-        return this.cacheFiles.computeIfAbsent(selector, cacheKey -> downloadJsonToCache(project, url, getCacheDirectory().getAsFile().get(), selector));
+        return record(selector, artifactCache.get().cache(url, selector));
     }
 
-    private File downloadVersionManifestToCache(Project project, final File cacheDirectory, final String minecraftVersion) {
-        final File manifestFile = new File(new File(cacheDirectory, CacheFileSelector.launcherMetadata().getCacheDirectory()), CacheFileSelector.launcherMetadata().getCacheFileName());
-
-        String url = null;
-
-        JsonObject json = SerializationUtils.fromJson(manifestFile, JsonObject.class);
-
-        for (JsonElement e : json.getAsJsonArray("versions")) {
-            String v = e.getAsJsonObject().get("id").getAsString();
-            if (Objects.equals(minecraftVersion, "+") || v.equals(minecraftVersion)) {
-                url = e.getAsJsonObject().get("url").getAsString();
-                break;
-            }
-        }
-
-        if (url == null) {
-            throw new IllegalStateException("Could not find the correct version json for version: " + minecraftVersion);
-        }
-
-        return downloadJsonToCache(project, url, cacheDirectory, CacheFileSelector.forVersionJson(minecraftVersion));
-    }
-
-    private File downloadVersionArtifactToCache(final Project project, final File cacheDirectory, String minecraftVersion, final DistributionType side) {
-        final MinecraftVersionAndUrl resolvedVersion = resolveVersion(minecraftVersion);
-
-        return doDownloadVersionDownloadToCache(project,
-                cacheDirectory,
-                resolvedVersion.getVersion(),
-                side.getName(),
-                CacheFileSelector.forVersionJar(resolvedVersion.getVersion(), side.getName()),
-                String.format("Failed to download game artifact %s for %s", side.getName(), resolvedVersion.getVersion()));
-    }
-
-    private File downloadVersionMappingsToCache(final Project project, final File cacheDirectory, String minecraftVersion, final DistributionType side) {
-        final MinecraftVersionAndUrl resolvedVersion = resolveVersion(minecraftVersion);
-
-        return doDownloadVersionDownloadToCache(project,
-                cacheDirectory,
-                resolvedVersion.getVersion(),
-                String.format("%s_mappings", side.getName()),
-                CacheFileSelector.forVersionMappings(resolvedVersion.getVersion(), side.getName()),
-                String.format("Failed to download game mappings of %s for %s", side.getName(), resolvedVersion.getVersion()));
-    }
-
-    private File doDownloadVersionDownloadToCache(Project project, File cacheDirectory, String minecraftVersion, final String artifact, final CacheFileSelector cacheFileSelector, final String potentialError) {
-        final MinecraftVersionAndUrl minecraftVersionAndUrl = resolveVersion(minecraftVersion);
-
-        final File versionManifestFile = this.cacheVersionManifest(minecraftVersionAndUrl);
-
-        try {
-            JsonObject json = SerializationUtils.fromJson(versionManifestFile, JsonObject.class);
-
-            JsonObject artifactInfo = json.getAsJsonObject("downloads").getAsJsonObject(artifact);
-            String url = artifactInfo.get("url").getAsString();
-            String hash = artifactInfo.get("sha1").getAsString();
-            String version = json.getAsJsonObject().get("id").getAsString();
-
-            final FileDownloadingUtils.DownloadInfo info = new FileDownloadingUtils.DownloadInfo(url, hash, "jar", version, artifact);
-
-            final File cacheFile = new File(new File(cacheDirectory, cacheFileSelector.getCacheDirectory()), cacheFileSelector.getCacheFileName());
-
-            if (cacheFile.exists()) {
-                final String fileHash = HashFunction.SHA1.hash(cacheFile);
-                if (fileHash.equals(hash)) {
-                    return cacheFile;
-                }
-            }
-
-            FileDownloadingUtils.downloadTo(project.getGradle().getStartParameter().isOffline(), info, cacheFile);
-            return cacheFile;
-        } catch (IOException e) {
-            throw new RuntimeException(potentialError, e);
-        }
-    }
-
-    private File downloadJsonToCache(Project project, final String url, final File cacheDirectory, final CacheFileSelector selector) {
-        final File cacheFile = new File(new File(cacheDirectory, selector.getCacheDirectory()), selector.getCacheFileName());
-        downloadJsonTo(project, url, cacheFile);
-        return cacheFile;
-    }
-
-    private void downloadJsonTo(Project project, String url, File file) {
-        FileDownloadingUtils.downloadThrowing(project.getGradle().getStartParameter().isOffline(), new FileDownloadingUtils.DownloadInfo(url, null, "json", null, null), file);
+    private File record(final CacheFileSelector selector, final File file) {
+        this.cacheFiles.put(selector, file);
+        return file;
     }
 
     @Override
     public MinecraftVersionAndUrl resolveVersion(final String gameVersion) {
-        final File launcherMetadata = this.cacheLauncherMetadata();
-
-        JsonObject json = SerializationUtils.fromJson(launcherMetadata, JsonObject.class);
-
-        for (JsonElement e : json.getAsJsonArray("versions")) {
-            if (gameVersion.equals("+") || e.getAsJsonObject().get("id").getAsString().equals(gameVersion)) {
-                return new MinecraftVersionAndUrl(e.getAsJsonObject().get("id").getAsString(), e.getAsJsonObject().get("url").getAsString());
-            }
-        }
-
-        throw new IllegalStateException("Could not find the correct version json.");
+        return artifactCache.get().resolveVersion(gameVersion);
     }
 
     public Provider<MinecraftVersionAndUrl> resolveVersion(Provider<String> gameVersion) {
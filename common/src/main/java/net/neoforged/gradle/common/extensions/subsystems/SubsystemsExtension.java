@@ -3,6 +3,7 @@ package net.neoforged.gradle.common.extensions.subsystems;
 import net.minecraftforge.gdi.ConfigurableDSLElement;
 import net.neoforged.gradle.common.extensions.base.WithEnabledProperty;
 import net.neoforged.gradle.common.extensions.base.WithPropertyLookup;
+import net.neoforged.gradle.common.util.FileCacheUtils;
 import net.neoforged.gradle.dsl.common.extensions.subsystems.*;
 import net.neoforged.gradle.dsl.common.extensions.subsystems.tools.RenderDocTools;
 import org.gradle.api.GradleException;
@@ -68,7 +69,7 @@ public abstract class SubsystemsExtension extends WithPropertyLookup implements
 
         RenderDocTools renderDocTools = tools.getRenderDoc();
         renderDocTools.getRenderDocPath().convention(
-                getDirectoryProperty("tools.renderDoc.path", getProject().getLayout().getBuildDirectory().dir("renderdoc"))
+                getDirectoryProperty("tools.renderDoc.path", FileCacheUtils.getRenderDocCacheDirectory(getProject()))
         );
         renderDocTools.getRenderDocVersion().convention(
                 getStringProperty("tools.renderDoc.version", "1.33")
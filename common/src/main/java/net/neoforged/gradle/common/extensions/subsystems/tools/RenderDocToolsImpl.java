@@ -1,5 +1,6 @@
 package net.neoforged.gradle.common.extensions.subsystems.tools;
 
+import net.neoforged.gradle.common.util.FileCacheUtils;
 import net.neoforged.gradle.dsl.common.extensions.subsystems.tools.RenderDocTools;
 import org.gradle.api.Project;
 
@@ -13,7 +14,7 @@ public abstract class RenderDocToolsImpl implements RenderDocTools {
     public RenderDocToolsImpl(Project project) {
         this.project = project;
 
-        getRenderDocPath().convention(getProject().getLayout().getBuildDirectory().dir("renderdoc"));
+        getRenderDocPath().convention(FileCacheUtils.getRenderDocCacheDirectory(project));
         getRenderDocVersion().convention("1.33");
         getRenderNurse().convention("net.neoforged:render-nurse:0.0.12");
     }
@@ -9,6 +9,8 @@ import net.neoforged.gradle.common.extensions.IdeManagementExtension;
 import net.neoforged.gradle.common.runs.ide.extensions.IdeaRunExtensionImpl;
 import net.neoforged.gradle.common.runs.ide.idea.JUnitWithBeforeRun;
 import net.neoforged.gradle.common.runs.run.RunImpl;
+import net.neoforged.gradle.common.runs.tasks.WriteArgsFile;
+import net.neoforged.gradle.common.services.ide.IdeaProjectMetadataService;
 import net.neoforged.gradle.common.util.ProjectUtils;
 import net.neoforged.gradle.common.util.SourceSetUtils;
 import net.neoforged.gradle.common.util.run.RunsUtil;
@@ -28,12 +30,10 @@ import net.neoforged.vsclc.writer.WritingMode;
 import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.Project;
-import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Copy;
 import org.gradle.api.tasks.SourceSet;
-import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.TaskProvider;
 import org.gradle.language.jvm.tasks.ProcessResources;
 import org.gradle.plugins.ide.eclipse.model.EclipseModel;
@@ -44,14 +44,19 @@ import org.jetbrains.gradle.ext.*;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 
 /**
@@ -109,6 +114,7 @@ public class IdeRunIntegrationManager {
         final IdeaProject ideaProject = ideaModel.getProject();
         final ExtensionAware extensionAware = (ExtensionAware) ideaProject;
         final IdeaRunsExtension runsExtension = extensionAware.getExtensions().getByType(IdeaRunsExtension.class);
+        final Provider<IdeaProjectMetadataService> ideaProjectMetadata = IdeaProjectMetadataService.register(project);
 
         runsExtension.getRunWithIdea().convention(
                 ideaConventions.getShouldUseCompilerDetection()
@@ -119,42 +125,83 @@ public class IdeRunIntegrationManager {
 
                             final File DotIdeaDirectory = new File(project.getProjectDir(), ".idea");
                             final File GradleXml = new File(DotIdeaDirectory, "gradle.xml");
-                            return FileUtils.contains(GradleXml, "<option name=\"delegatedBuild\" value=\"false\" />");
+                            return ideaProjectMetadata.get().isDelegatedBuildDisabled(GradleXml);
                         })
         );
     }
 
+    /**
+     * Converts the runs of a project into the run configurations of the IDE that is importing it.
+     * <p>
+     * An instance is created per project, and remembers the resource copy tasks and mod classes it computed,
+     * so that runs sharing source sets share them too. Launch files are only written when their content changed,
+     * so an import which changes nothing does not make the IDE reload or reindex them.
+     */
     private static final class RunsImportAction implements IdeManagementExtension.IdeImportAction {
 
-        private void common(Project project) {
-            final SourceSetContainer container = project.getExtensions().getByType(SourceSetContainer.class);
-            container.forEach(sourceSet -> {
-                final Configuration compileClasspath = project.getConfigurations().getByName(sourceSet.getCompileClasspathConfigurationName());
-                final Configuration runtimeClasspath = project.getConfigurations().getByName(sourceSet.getRuntimeClasspathConfigurationName());
+        private final Map<SourceSet, TaskProvider<?>> intelliJCopyResourcesTasks = new HashMap<>();
+        private final Map<SourceSet, TaskProvider<?>> eclipseCopyResourcesTasks = new HashMap<>();
+        private final Map<List<Object>, String> modClasses = new HashMap<>();
+
+        /**
+         * Resolves the classpaths of the source sets of the project which are used by the given runs,
+         * which realises their lazy dependencies before the run configurations are created.
+         * Source sets of other projects are resolved by the import of their own project.
+         */
+        private void common(Project project, Iterable<? extends Run> runs) {
+            final Set<String> classpaths = new LinkedHashSet<>();
+            for (Run run : runs) {
+                collectClasspaths(project, run.getModSources().all().get().values(), classpaths);
+                if (run.getIsJUnit().get()) {
+                    collectClasspaths(project, run.getUnitTestSources().all().get().values(), classpaths);
+                }
+            }
 
-                compileClasspath.resolve();
-                runtimeClasspath.resolve();
-            });
+            classpaths.forEach(classpath -> project.getConfigurations().getByName(classpath).resolve());
+        }
+
+        private static List<Run> getExportedRuns(RunManager runManager) {
+            final List<Run> runs = new ArrayList<>();
+            for (Run run : runManager) {
+                if (run.getShouldExportToIDE().get()) {
+                    runs.add(run);
+                }
+            }
+            return runs;
+        }
+
+        private static void collectClasspaths(Project project, Collection<SourceSet> sourceSets, Set<String> classpaths) {
+            for (SourceSet sourceSet : sourceSets) {
+                if (SourceSetUtils.getProject(sourceSet) != project)
+                    continue;
+
+                classpaths.add(sourceSet.getCompileClasspathConfigurationName());
+                classpaths.add(sourceSet.getRuntimeClasspathConfigurationName());
+            }
         }
 
         @Override
         public void idea(Project project, Project rootProject, IdeaModel idea, ProjectSettings ideaExtension) {
             project.afterEvaluate(evaluatedProject -> {
-                common(project);
+                final RunManager runManager = project.getExtensions().getByType(RunManager.class);
+                final boolean reconfigureTemplatesForTests = project.getExtensions().getByType(Subsystems.class).getConventions().getIde().getIdea().getShouldReconfigureTemplatesForTests().get();
+                final Run ideaDefaultUnitTestRun = ((ExtensionAware) idea).getExtensions().getByType(Run.class);
+
+                final List<Run> runs = getExportedRuns(runManager);
+                if (reconfigureTemplatesForTests) {
+                    runs.add(ideaDefaultUnitTestRun);
+                }
+                common(project, runs);
 
                 final RunConfigurationContainer ideaRuns = ((ExtensionAware) ideaExtension).getExtensions().getByType(RunConfigurationContainer.class);
 
                 attemptJUnitWithBeforeRunRegistration(project, ideaRuns);
 
-                project.getExtensions().configure(RunManager.class, runs -> runs.all(run -> createIdeaRun(project, run, ideaRuns, false)));
-
-                if (project.getExtensions().getByType(Subsystems.class).getConventions().getIde().getIdea().getShouldReconfigureTemplatesForTests().get()) {
-                    final ExtensionAware ideaModelExtensions = (ExtensionAware) idea;
-                    final Run ideaDefaultUnitTestRun = ideaModelExtensions.getExtensions().getByType(Run.class);
+                runManager.all(run -> createIdeaRun(project, run, ideaRuns, false));
 
+                if (reconfigureTemplatesForTests) {
                     //We finally know that the user wants this to be registered, additionally the IDE integration resolved the lazy dependencies
                     //here, so we can now with a gentle heart register the run type, and the run configuration conversion.
-                    RunManager runManager = project.getExtensions().getByType(RunManager.class);
                     runManager.addInternal(ideaDefaultUnitTestRun);
 
                     createIdeaRun(project, ideaDefaultUnitTestRun, ideaRuns, true);
@@ -197,7 +244,7 @@ public class IdeRunIntegrationManager {
                     ideaRun.setJvmArgs(RunsUtil.escapeAndJoin(RunsUtil.deduplicateElementsFollowingEachOther(runImpl.realiseJvmArguments().stream()).toList()));
                     ideaRun.setModuleName(RunsUtil.getIntellijModuleName(run.getExtensions().getByType(IdeaRunExtension.class).getPrimarySourceSet().get()));
                     ideaRun.setProgramParameters(RunsUtil.escapeAndJoin(RunsUtil.deduplicateElementsFollowingEachOther(runImpl.getArguments().get().stream()).toList()));
-                    ideaRun.setEnvs(adaptEnvironment(runImpl, multimapProvider -> RunsUtil.buildRunWithIdeaModClasses(multimapProvider, RunsUtil.IdeaCompileType.Production)));
+                    ideaRun.setEnvs(adaptEnvironment(runImpl, getIdeaModClasses(runImpl.getModSources().all(), RunsUtil.IdeaCompileType.Production)));
                     ideaRun.setShortenCommandLine(ShortenCommandLine.ARGS_FILE);
 
                     ideaRun.beforeRun(beforeRuns -> {
@@ -211,6 +258,9 @@ public class IdeRunIntegrationManager {
                     ideaRun.setDefaults(defaultRun);
                 });
             } else {
+                final List<TaskProvider<WriteArgsFile>> argsFileTasks = RunsUtil.createUnitTestArgsFileTasks(run);
+                ideBeforeRunTask.configure(task -> task.dependsOn(argsFileTasks));
+
                 ideaRuns.register(runName, JUnitWithBeforeRun.class, ideaRun -> {
                     final RunsUtil.PreparedUnitTestEnvironment preparedUnitTestEnvironment = RunsUtil.prepareUnitTestEnvironment(run);
 
@@ -230,8 +280,9 @@ public class IdeRunIntegrationManager {
                                     "@%s".formatted(preparedUnitTestEnvironment.jvmArgumentsFile().getAbsolutePath())
                     ));
                     ideaRun.setEnvs(adaptEnvironment(runImpl,
-                            multimapProvider -> RunsUtil.buildRunWithIdeaModClasses(multimapProvider, RunsUtil.IdeaCompileType.Production),
-                            multimapProvider -> RunsUtil.buildRunWithIdeaModClasses(multimapProvider, RunsUtil.IdeaCompileType.Test))
+                            getIdeaModClasses(runImpl.getModSources().all(), RunsUtil.IdeaCompileType.Production)
+                                    + File.pathSeparator
+                                    + getIdeaModClasses(runImpl.getUnitTestSources().all(), RunsUtil.IdeaCompileType.Test))
                     );
                     ideaRun.setShortenCommandLine(ShortenCommandLine.ARGS_FILE);
 
@@ -251,9 +302,10 @@ public class IdeRunIntegrationManager {
         @Override
         public void eclipse(Project project, EclipseModel eclipse) {
             ProjectUtils.afterEvaluate(project, () -> {
-                common(project);
+                final RunManager runManager = project.getExtensions().getByType(RunManager.class);
+                common(project, getExportedRuns(runManager));
 
-                project.getExtensions().configure(RunManager.class, runs -> runs.all(run -> {
+                runManager.all(run -> {
                     if (!run.getShouldExportToIDE().get())
                         return;
 
@@ -283,7 +335,7 @@ public class IdeRunIntegrationManager {
                                         .workingDirectory(runImpl.getWorkingDirectory().get().getAsFile().getAbsolutePath())
                                         .vmArgs(RunsUtil.deduplicateElementsFollowingEachOther(RunsUtil.escapeStream(runImpl.realiseJvmArguments())).toArray(String[]::new))
                                         .args(RunsUtil.deduplicateElementsFollowingEachOther(RunsUtil.escapeStream(runImpl.getArguments().get())).toArray(String[]::new))
-                                        .envVar(adaptEnvironment(runImpl, RunsUtil::buildRunWithEclipseModClasses))
+                                        .envVar(adaptEnvironment(runImpl, getEclipseModClasses(runImpl.getModSources().all())))
                                         .useArgumentsFile()
                                         .build(runImpl.getMainClass().get());
                         
@@ -306,7 +358,7 @@ public class IdeRunIntegrationManager {
                     } catch (Exception e) {
                         throw new RuntimeException("Failed to write launch files: " + runName, e);
                     }
-                }));
+                });
             });
         }
 
@@ -314,10 +366,11 @@ public class IdeRunIntegrationManager {
         public void vscode(Project project, EclipseModel eclipse)
         {
             ProjectUtils.afterEvaluate(project, () -> {
-                common(project);
+                final RunManager runManager = project.getExtensions().getByType(RunManager.class);
+                common(project, getExportedRuns(runManager));
 
                 final BatchedLaunchWriter launchWriter = new BatchedLaunchWriter(WritingMode.MODIFY_CURRENT);
-                project.getExtensions().configure(RunManager.class, runs -> runs.all(run -> {
+                runManager.all(run -> {
                     if (!run.getShouldExportToIDE().get())
                         return;
 
@@ -335,7 +388,7 @@ public class IdeRunIntegrationManager {
                         .withAdditionalJvmArgs(RunsUtil.deduplicateElementsFollowingEachOther(runImpl.realiseJvmArguments().stream()).toList())
                         .withArguments(RunsUtil.deduplicateElementsFollowingEachOther(runImpl.getArguments().get().stream()).toList())
                         .withCurrentWorkingDirectory(PathLike.ofNio(runImpl.getWorkingDirectory().get().getAsFile().toPath()))
-                        .withEnvironmentVariables(adaptEnvironment(runImpl, RunsUtil::buildRunWithEclipseModClasses))
+                        .withEnvironmentVariables(adaptEnvironment(runImpl, getEclipseModClasses(runImpl.getModSources().all())))
                         .withShortenCommandLine(ShortCmdBehaviour.ARGUMENT_FILE)
                         .withMainClass(runImpl.getMainClass().get())
                         .withProjectName(eclipse.getProject().getName())
@@ -349,9 +402,9 @@ public class IdeRunIntegrationManager {
                     {
                         eclipse.autoBuildTasks(ideBeforeRunTask);
                     }
-                }));
+                });
                 try {
-                    launchWriter.writeToLatestJson(project.getRootDir().toPath());
+                    writeVsCodeLaunchFile(project, launchWriter);
                 } catch (final IOException e) {
                     throw new RuntimeException("Failed to write launch files", e);
                 }
@@ -389,65 +442,68 @@ public class IdeRunIntegrationManager {
             return copyProcessResources;
         }
 
-        private static @NotNull TaskProvider<?> setupCopyResourcesForIdea(SourceSet sourceSet) {
-            final Project sourceSetProject = SourceSetUtils.getProject(sourceSet);
+        private @NotNull TaskProvider<?> setupCopyResourcesForIdea(SourceSet sourceSet) {
+            return intelliJCopyResourcesTasks.computeIfAbsent(sourceSet, key -> {
+                final Project sourceSetProject = SourceSetUtils.getProject(sourceSet);
 
-            final String taskName = CommonRuntimeUtils.buildTaskName("intelliJCopy", sourceSet.getProcessResourcesTaskName());
-            final TaskProvider<?> intelliJResourcesTask;
+                final String taskName = CommonRuntimeUtils.buildTaskName("intelliJCopy", sourceSet.getProcessResourcesTaskName());
+                if (sourceSetProject.getTasks().getNames().contains(taskName)) {
+                    return sourceSetProject.getTasks().named(taskName);
+                }
 
-            if (sourceSetProject.getTasks().findByName(taskName) != null) {
-                intelliJResourcesTask = sourceSetProject.getTasks().named(taskName);
-            }
-            else {
-                intelliJResourcesTask = sourceSetProject.getTasks().register(taskName, Copy.class, task -> {
+                return sourceSetProject.getTasks().register(taskName, Copy.class, task -> {
                     final TaskProvider<ProcessResources> defaultProcessResources = sourceSetProject.getTasks().named(sourceSet.getProcessResourcesTaskName(), ProcessResources.class);
                     task.from(defaultProcessResources.map(ProcessResources::getDestinationDir));
                     task.into(RunsUtil.getRunWithIdeaResourcesDirectory(sourceSet));
 
                     task.dependsOn(defaultProcessResources);
                 });
-            }
-            return intelliJResourcesTask;
+            });
         }
 
         private List<TaskProvider<?>> createEclipseCopyResourcesTasks(EclipseModel eclipse, Run run) {
             final List<TaskProvider<?>> copyProcessResources = new ArrayList<>();
             for (SourceSet sourceSet : run.getModSources().all().get().values()) {
+                copyProcessResources.add(setupCopyResourcesForEclipse(eclipse, sourceSet));
+            }
+            return copyProcessResources;
+        }
+
+        private @NotNull TaskProvider<?> setupCopyResourcesForEclipse(EclipseModel eclipse, SourceSet sourceSet) {
+            return eclipseCopyResourcesTasks.computeIfAbsent(sourceSet, key -> {
                 final Project sourceSetProject = SourceSetUtils.getProject(sourceSet);
 
                 final String taskName = CommonRuntimeUtils.buildTaskName("eclipseCopy", sourceSet.getProcessResourcesTaskName());
-                final TaskProvider<?> eclipseResourcesTask;
-
-                if (sourceSetProject.getTasks().findByName(taskName) != null) {
-                    eclipseResourcesTask = sourceSetProject.getTasks().named(taskName);
-                }
-                else {
-                    eclipseResourcesTask = sourceSetProject.getTasks().register(taskName, Copy.class, task -> {
-                        final TaskProvider<ProcessResources> defaultProcessResources = sourceSetProject.getTasks().named(sourceSet.getProcessResourcesTaskName(), ProcessResources.class);
-                        task.from(defaultProcessResources.map(ProcessResources::getDestinationDir));
-                        Path outputDir = eclipse.getClasspath().getDefaultOutputDir().toPath();
-                        if (outputDir.endsWith("default")) {
-                            // sometimes it has default value from org.gradle.plugins.ide.eclipse.internal.EclipsePluginConstants#DEFAULT_PROJECT_OUTPUT_PATH
-                            // which has /default on end that is not present in the final outputDir in eclipse/buildship
-                            // (output of getDefaultOutputDir() should be just project/bin/)
-                            outputDir = outputDir.getParent();
-                        }
-                        task.into(outputDir.resolve(sourceSet.getName()));
-
-                        task.dependsOn(defaultProcessResources);
-                    });
+                if (sourceSetProject.getTasks().getNames().contains(taskName)) {
+                    return sourceSetProject.getTasks().named(taskName);
                 }
 
-                copyProcessResources.add(eclipseResourcesTask);
-            }
-            return copyProcessResources;
+                return sourceSetProject.getTasks().register(taskName, Copy.class, task -> {
+                    final TaskProvider<ProcessResources> defaultProcessResources = sourceSetProject.getTasks().named(sourceSet.getProcessResourcesTaskName(), ProcessResources.class);
+                    task.from(defaultProcessResources.map(ProcessResources::getDestinationDir));
+                    Path outputDir = eclipse.getClasspath().getDefaultOutputDir().toPath();
+                    if (outputDir.endsWith("default")) {
+                        // sometimes it has default value from org.gradle.plugins.ide.eclipse.internal.EclipsePluginConstants#DEFAULT_PROJECT_OUTPUT_PATH
+                        // which has /default on end that is not present in the final outputDir in eclipse/buildship
+                        // (output of getDefaultOutputDir() should be just project/bin/)
+                        outputDir = outputDir.getParent();
+                    }
+                    task.into(outputDir.resolve(sourceSet.getName()));
+
+                    task.dependsOn(defaultProcessResources);
+                });
+            });
         }
 
+        /**
+         * Renders the launch configuration in memory, and only writes it to its file when it differs from what is already on disk.
+         */
         private static void writeLaunchToFile(Project project, String fileName, LaunchConfig config) {
             final File file = project.file(String.format(".eclipse/configurations/%s.launch", fileName));
-            file.getParentFile().mkdirs();
-            try (FileWriter writer = new FileWriter(file, false)) {
+            final StringWriter writer = new StringWriter();
+            try {
                 config.write(writer);
+                FileUtils.writeIfChanged(file.toPath(), writer.toString().getBytes(StandardCharsets.UTF_8));
             }
             catch (IOException e) {
                 throw new UncheckedIOException("Failed to write launch file: " + fileName, e);
@@ -456,27 +512,49 @@ public class IdeRunIntegrationManager {
                 throw new RuntimeException("Failed to write launch file: " + fileName, e);
             }
         }
-        
-        private static Map<String, String> adaptEnvironment(
-                final RunImpl run,
-                final Function<Provider<Multimap<String, SourceSet>>, Provider<String>> modClassesProvider
-                ) {
-            final Map<String, String> environment = new HashMap<>(run.getEnvironmentVariables().get());
-            environment.put("MOD_CLASSES", modClassesProvider.apply(run.getModSources().all()).get());
-            return environment;
+
+        /**
+         * Merges the launch configurations into the current launch.json of the workspace in a staging copy of it,
+         * and only replaces the real one when the merge changed its content.
+         */
+        private static void writeVsCodeLaunchFile(Project project, BatchedLaunchWriter launchWriter) throws IOException {
+            final Path launchFile = project.getRootDir().toPath().resolve(".vscode").resolve("launch.json");
+            final Path staging = Files.createTempDirectory("vscode-launch");
+            try {
+                final Path stagedLaunchFile = Files.createDirectories(staging.resolve(".vscode")).resolve("launch.json");
+                if (Files.isRegularFile(launchFile)) {
+                    Files.copy(launchFile, stagedLaunchFile);
+                }
+
+                launchWriter.writeToLatestJson(staging);
+                FileUtils.writeIfChanged(launchFile, Files.readAllBytes(stagedLaunchFile));
+            } finally {
+                FileUtils.delete(staging);
+            }
         }
 
-        private static Map<String, String> adaptEnvironment(
-                final RunImpl run,
-                final Function<Provider<Multimap<String, SourceSet>>, Provider<String>> modClassesProvider,
-                final Function<Provider<Multimap<String, SourceSet>>, Provider<String>> modTestClassesProvider
-        ) {
-            final Map<String, String> environment = new HashMap<>(run.getEnvironmentVariables().get());
+        private String getIdeaModClasses(final Provider<Multimap<String, SourceSet>> sourceSets, final RunsUtil.IdeaCompileType compileType) {
+            return getModClasses(compileType, sourceSets, multimapProvider -> RunsUtil.buildRunWithIdeaModClasses(multimapProvider, compileType));
+        }
 
-            final Provider<String> joinedModClasses = modClassesProvider.apply(run.getModSources().all())
-                    .zip(modTestClassesProvider.apply(run.getUnitTestSources().all()), (modClasses, testClasses) -> modClasses + File.pathSeparator + testClasses);
+        private String getEclipseModClasses(final Provider<Multimap<String, SourceSet>> sourceSets) {
+            return getModClasses("eclipse", sourceSets, RunsUtil::buildRunWithEclipseModClasses);
+        }
 
-            environment.put("MOD_CLASSES", joinedModClasses.get());
+        /**
+         * Gets the mod classes of the given source sets, runs with the same mod sources share the same string.
+         */
+        private String getModClasses(
+                final Object kind,
+                final Provider<Multimap<String, SourceSet>> sourceSets,
+                final Function<Provider<Multimap<String, SourceSet>>, Provider<String>> modClassesProvider
+        ) {
+            return modClasses.computeIfAbsent(List.of(kind, sourceSets.get()), key -> modClassesProvider.apply(sourceSets).get());
+        }
+
+        private static Map<String, String> adaptEnvironment(final RunImpl run, final String modClasses) {
+            final Map<String, String> environment = new HashMap<>(run.getEnvironmentVariables().get());
+            environment.put("MOD_CLASSES", modClasses);
             return environment;
         }
     }
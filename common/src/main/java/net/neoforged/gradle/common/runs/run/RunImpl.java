@@ -40,6 +40,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
     private final Project project;
     private final String name;
     private final ListProperty<RunSpecification> specifications;
+    private final RunSpecificationResolver resolver;
     private final RunSourceSets modSources;
     private final RunSourceSets unitTestSources;
     private final RunTestScope testScope;
@@ -69,6 +70,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
         this.programArguments = this.project.getObjects().listProperty(String.class);
         this.systemProperties = this.project.getObjects().mapProperty(String.class, String.class);
         this.specifications = this.project.getObjects().listProperty(RunSpecification.class);
+        this.resolver = new RunSpecificationResolver(project, this.specifications);
 
         getIsSingleInstance().convention(true);
         getIsClient().convention(false);
@@ -288,12 +290,10 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
     }
 
     private void configureFromRuns() {
-        Provider<List<Run>> runSpecifications = specifications.map(l -> l.stream().filter(Run.class::isInstance).map(Run.class::cast).toList());
-
         //Properties of the run
         getWorkingDirectory().convention(
                 TransformerUtils.defaulted(
-                        runSpecifications.flatMap(
+                        resolver.fromRuns(() ->
                                 TransformerUtils.takeLast(project, Run::getWorkingDirectory)
                         ),
                         project.getLayout().getProjectDirectory().dir("runs").dir(getName())
@@ -304,7 +304,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
         //Properties of the renderdoc integration
         getRenderDoc().getEnabled().convention(
                 TransformerUtils.lazyDefaulted(
-                        runSpecifications.flatMap(
+                        resolver.fromRuns(() ->
                                 TransformerUtils.takeLast(project, run -> run.getRenderDoc().getEnabled())
                         ),
                         renderDoc.getConventionForRun().zip(getIsClient(), (conventionForRun, isClient) -> conventionForRun && isClient)
@@ -315,21 +315,21 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
         final DevLogin devLogin = project.getExtensions().getByType(Subsystems.class).getConventions().getRuns().getDevLogin();
         getDevLogin().getIsEnabled().convention(
                 TransformerUtils.lazyDefaulted(
-                        runSpecifications.flatMap(
+                        resolver.fromRuns(() ->
                                 TransformerUtils.takeLast(project, run -> run.getDevLogin().getIsEnabled())
                         ),
                         devLogin.getConventionForRun().zip(getIsClient(), (conventionForRun, isClient) -> conventionForRun && isClient)
                 )
         );
         getDevLogin().getProfile().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getDevLogin().getProfile())
                 )
         );
 
         //ModSources
         getModSources().addAllLater(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.combineAllMultiMaps(
                                 project,
                                 String.class,
@@ -341,7 +341,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
 
         //UnitTestSources
         getUnitTestSources().addAllLater(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.combineAllMultiMaps(
                                 project,
                                 String.class,
@@ -353,18 +353,18 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
 
         //Properties of the test scope
         getTestScope().getPackageName().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getTestScope().getPackageName())
                 )
         );
         getTestScope().getDirectory().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getTestScope().getDirectory())
                 )
         );
         getTestScope().getPattern().convention(
                 TransformerUtils.lazyDefaulted(
-                        runSpecifications.flatMap(
+                        resolver.fromRuns(() ->
                                 TransformerUtils.takeLast(project, run -> run.getTestScope().getPattern())
                         ),
                         project.provider(() -> {
@@ -381,24 +381,24 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
                 )
         );
         getTestScope().getClassName().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getTestScope().getClassName())
                 )
         );
         getTestScope().getMethod().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getTestScope().getMethod())
                 )
         );
         getTestScope().getCategory().convention(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.takeLast(project, run -> run.getTestScope().getCategory())
                 )
         );
 
         //Dependencies
         getDependencies().getRuntime().bundle(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.combineAllSets(
                                 project,
                                 Dependency.class,
@@ -409,7 +409,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
 
         //Task dependencies
         getDependsOn().addAll(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.combineAllSets(
                                 project,
                                 Task.class,
@@ -420,7 +420,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
 
         //Pre-sync tasks
         getPostSyncTasks().addAll(
-                runSpecifications.flatMap(
+                resolver.fromRuns(() ->
                         TransformerUtils.combineAllSets(
                                 project,
                                 Task.class,
@@ -432,7 +432,7 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
         //Exporting to IDEs
         getShouldExportToIDE().convention(
                 TransformerUtils.defaulted(
-                        runSpecifications.flatMap(
+                        resolver.fromRuns(() ->
                                 TransformerUtils.takeLast(project, Run::getShouldExportToIDE)
                         ),
                         true
@@ -502,30 +502,30 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
     }
 
     private void configureRunSpecification() {
-        getEnvironmentVariables().putAll(specifications.flatMap(TransformerUtils.combineAllMaps(
+        getEnvironmentVariables().putAll(resolver.fromSpecifications(() -> TransformerUtils.combineAllMaps(
                 getProject(),
                 String.class,
                 String.class,
                 RunSpecification::getEnvironmentVariables
         )));
-        getMainClass().convention(specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getMainClass)));
-        getArguments().addAll(specifications.flatMap(TransformerUtils.combineAllLists(
+        getMainClass().convention(resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getMainClass)));
+        getArguments().addAll(resolver.fromSpecifications(() -> TransformerUtils.combineAllLists(
                 getProject(),
                 String.class,
                 RunSpecification::getArguments
         )));
-        getJvmArguments().addAll(specifications.flatMap(TransformerUtils.combineAllLists(
+        getJvmArguments().addAll(resolver.fromSpecifications(() -> TransformerUtils.combineAllLists(
                 getProject(),
                 String.class,
                 RunSpecification::getJvmArguments
         )));
         getIsSingleInstance().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsSingleInstance)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsSingleInstance)),
                         true
                 )
         );
-        getSystemProperties().putAll(specifications.flatMap(TransformerUtils.combineAllMaps(
+        getSystemProperties().putAll(resolver.fromSpecifications(() -> TransformerUtils.combineAllMaps(
                 getProject(),
                 String.class,
                 String.class,
@@ -533,31 +533,31 @@ public abstract class RunImpl implements ConfigurableDSLElement<Run>, Run {
         )));
         getIsClient().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsClient)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsClient)),
                         false
                 )
         );
         getIsServer().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsServer)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsServer)),
                         false
                 )
         );
         getIsDataGenerator().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsDataGenerator)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsDataGenerator)),
                         false
                 )
         );
         getIsGameTest().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsGameTest)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsGameTest)),
                         false
                 )
         );
         getIsJUnit().convention(
                 TransformerUtils.defaulted(
-                        specifications.flatMap(TransformerUtils.takeLast(getProject(), RunSpecification::getIsJUnit)),
+                        resolver.fromSpecifications(() -> TransformerUtils.takeLast(getProject(), RunSpecification::getIsJUnit)),
                         false
                 )
         );
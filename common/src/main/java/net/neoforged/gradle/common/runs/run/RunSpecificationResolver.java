@@ -0,0 +1,111 @@
+package net.neoforged.gradle.common.runs.run;
+
+import net.neoforged.gradle.dsl.common.runs.RunSpecification;
+import net.neoforged.gradle.dsl.common.runs.run.Run;
+import org.gradle.api.Project;
+import org.gradle.api.Transformer;
+import org.gradle.api.provider.Provider;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the properties a run inherits from the specifications it is configured from.
+ * <p>
+ * The list of specifications is resolved on every query, its entries are providers which may resolve differently over time.
+ * The result is kept as a snapshot, which is reused for as long as the run is configured from the same specifications.
+ * Each inherited property compiles its combination of the specifications once per snapshot, instead of rebuilding the
+ * combining providers every time the property is queried. The values of the specifications themselves are not cached,
+ * the compiled combination still queries them lazily, so later changes to a specification are picked up.
+ */
+final class RunSpecificationResolver {
+
+    private final Provider<List<RunSpecification>> specifications;
+    private final Provider<Snapshot> snapshot;
+
+    private Snapshot current;
+
+    RunSpecificationResolver(final Project project, final Provider<List<RunSpecification>> specifications) {
+        this.specifications = specifications;
+        this.snapshot = project.provider(this::snapshot);
+    }
+
+    /**
+     * Creates a provider which combines a property of all specifications of the run.
+     *
+     * @param compiler Creates the transformer which combines the specifications, it is invoked once per snapshot.
+     * @return The provider of the combined value.
+     * @param <V> The type of the combined value.
+     */
+    <V> Provider<V> fromSpecifications(final Supplier<? extends Transformer<? extends Provider<? extends V>, List<RunSpecification>>> compiler) {
+        return snapshot.flatMap(new Compiled<>(Snapshot::specifications, compiler));
+    }
+
+    /**
+     * Creates a provider which combines a property of all the runs the run is configured from.
+     *
+     * @param compiler Creates the transformer which combines the runs, it is invoked once per snapshot.
+     * @return The provider of the combined value.
+     * @param <V> The type of the combined value.
+     */
+    <V> Provider<V> fromRuns(final Supplier<? extends Transformer<? extends Provider<? extends V>, List<Run>>> compiler) {
+        return snapshot.flatMap(new Compiled<>(Snapshot::runs, compiler));
+    }
+
+    private synchronized Snapshot snapshot() {
+        final List<RunSpecification> resolved = specifications.get();
+        if (current == null || !current.matches(resolved)) {
+            current = new Snapshot(resolved);
+        }
+        return current;
+    }
+
+    /**
+     * The specifications of a run at a given point in time.
+     */
+    private record Snapshot(List<RunSpecification> specifications, List<Run> runs) {
+
+        private Snapshot(final List<RunSpecification> specifications) {
+            this(List.copyOf(specifications), specifications.stream().filter(Run.class::isInstance).map(Run.class::cast).toList());
+        }
+
+        private boolean matches(final List<RunSpecification> other) {
+            if (other.size() != specifications.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < other.size(); i++) {
+                if (other.get(i) != specifications.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A combination of the specifications, which is only recompiled when the snapshot changes.
+     */
+    private static final class Compiled<I, V> implements Transformer<Provider<? extends V>, Snapshot> {
+        private final Function<Snapshot, List<I>> selector;
+        private final Supplier<? extends Transformer<? extends Provider<? extends V>, List<I>>> compiler;
+
+        private Snapshot compiledFor;
+        private Provider<? extends V> compiled;
+
+        private Compiled(Function<Snapshot, List<I>> selector, Supplier<? extends Transformer<? extends Provider<? extends V>, List<I>>> compiler) {
+            this.selector = selector;
+            this.compiler = compiler;
+        }
+
+        @Override
+        public synchronized Provider<? extends V> transform(final Snapshot snapshot) {
+            if (compiledFor != snapshot) {
+                compiled = compiler.get().transform(selector.apply(snapshot));
+                compiledFor = snapshot;
+            }
+            return compiled;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package net.neoforged.gradle.common.runs.run;
 
 import net.neoforged.gradle.common.util.DelegatingDomainObjectContainer;
+import net.neoforged.gradle.common.util.FileIdentity;
 import net.neoforged.gradle.dsl.common.runs.run.Run;
 import net.neoforged.gradle.dsl.common.runs.type.RunType;
 import net.neoforged.gradle.dsl.common.runs.type.RunTypeManager;
@@ -13,12 +14,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class RunTypeManagerImpl extends DelegatingDomainObjectContainer<RunType> implements RunTypeManager {
 
     private final List<Parser> parsers = new ArrayList<>();
+    private final Map<FileIdentity, Collection<RunType>> parsed = new ConcurrentHashMap<>();
 
     private static NamedDomainObjectContainer<RunType> createAndRegisterContainer(Project project) {
         final NamedDomainObjectContainer<RunType> container = project.container(RunType.class, name -> project.getObjects().newInstance(RunType.class, name));
@@ -31,12 +35,16 @@ public class RunTypeManagerImpl extends DelegatingDomainObjectContainer<RunType>
         super(createAndRegisterContainer(project));
     }
 
+    /**
+     * Parses the run types in the given file, every run looks up its run types in the same sdk files,
+     * so the results are kept for as long as the file does not change.
+     */
     @Override
     public Collection<RunType> parse(File file) {
         if (!file.exists())
             return Collections.emptyList();
 
-        return parsers.stream()
+        return parsed.computeIfAbsent(FileIdentity.of(file), identity -> parsers.stream()
                 .flatMap(parser -> {
                     try {
                         return parser.parse(file).stream();
@@ -44,11 +52,12 @@ public class RunTypeManagerImpl extends DelegatingDomainObjectContainer<RunType>
                         return Stream.empty();
                     }
                 })
-                .collect(Collectors.toSet());
+                .collect(Collectors.toUnmodifiableSet()));
     }
 
     @Override
     public void registerParser(Parser parser) {
         parsers.add(parser);
+        parsed.clear();
     }
 }
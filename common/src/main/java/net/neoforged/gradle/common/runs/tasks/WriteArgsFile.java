@@ -0,0 +1,45 @@
+package net.neoforged.gradle.common.runs.tasks;
+
+import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
+import net.neoforged.gradle.util.FileUtils;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes an arguments file, one argument per line, as read by the {@code @file} syntax of the java launcher and by FML.
+ * <p>
+ * The task is up-to-date as long as the arguments do not change, and even when it runs the file is only
+ * replaced if its content differs.
+ */
+public abstract class WriteArgsFile extends NeoGradleBase {
+
+    @TaskAction
+    public void doWrite() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (String argument : getArguments().get()) {
+            content.append(argument).append(System.lineSeparator());
+        }
+
+        FileUtils.writeIfChanged(getArgsFile().get().getAsFile().toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The name of the run the file is written for, used to detect runs whose task names collide.
+     */
+    @Internal
+    public abstract Property<String> getRunName();
+
+    @Input
+    public abstract ListProperty<String> getArguments();
+
+    @OutputFile
+    public abstract RegularFileProperty getArgsFile();
+}
@@ -199,7 +199,7 @@ public abstract class CommonRuntimeDefinition<S extends CommonRuntimeSpecificati
 
         interpolationData.put("asset_index",
                 getAssets().flatMap(DownloadAssets::getAssetIndexTargetFile).map(RegularFile::getAsFile).map(File::getName).map(s -> s.substring(0, s.lastIndexOf('.'))));
-        interpolationData.put("natives", getNatives().flatMap(ExtractNatives::getOutputDirectory).map(Directory::getAsFile).map(File::getAbsolutePath));
+        interpolationData.put("natives", getNatives().flatMap(ExtractNatives::getNativesDirectory).map(Directory::getAsFile).map(File::getAbsolutePath));
     }
 
     protected ListProperty<String> interpolate(final ListProperty<String> input, final MapProperty<String, String> values) {
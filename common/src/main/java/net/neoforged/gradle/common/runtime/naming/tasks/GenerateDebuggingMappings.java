@@ -2,20 +2,18 @@ package net.neoforged.gradle.common.runtime.naming.tasks;
 
 import net.neoforged.gradle.dsl.common.util.DistributionType;
 import net.neoforged.gradle.util.FileUtils;
-import net.neoforged.gradle.util.TransformerUtils;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
-import net.neoforged.gradle.common.util.CacheableIMappingFile;
 import net.neoforged.gradle.dsl.common.extensions.MinecraftArtifactCache;
 import net.minecraftforge.srgutils.IMappingFile;
-import org.gradle.api.provider.Property;
-import org.gradle.api.tasks.Input;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Files;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.zip.ZipOutputStream;
@@ -23,12 +21,10 @@ import java.util.zip.ZipOutputStream;
 @NotNull
 public abstract class GenerateDebuggingMappings extends DefaultRuntime {
 
+    private static final String[] HEADER = new String[]{"searge", "name", "side", "desc"};
+
     public GenerateDebuggingMappings() {
-        getMappingsFile().convention(getMinecraftVersion()
-                .map(minecraftVersion -> getProject().getExtensions().getByType(MinecraftArtifactCache.class)
-                        .cacheVersionMappings(minecraftVersion, DistributionType.CLIENT))
-                .map(TransformerUtils.guard(IMappingFile::load))
-                .map(CacheableIMappingFile::new));
+        getMappingsFile().fileProvider(getMinecraftVersion().map(minecraftVersion -> getProject().getExtensions().getByType(MinecraftArtifactCache.class).cacheVersionMappings(minecraftVersion, DistributionType.CLIENT)));
 
         getOutputFileName().convention("mappings.zip");
     }
@@ -37,11 +33,11 @@ public abstract class GenerateDebuggingMappings extends DefaultRuntime {
     public void generate() throws Exception {
         final File output = ensureFileWorkspaceReady(getOutput());
 
-        IMappingFile mappingFile = getMappingsFile().get();
-
-        Map<String, String> fieldMappings = new TreeMap<>();
-        Map<String, String> methodMappings = new TreeMap<>();
+        final IMappingFile mappingFile = IMappingFile.load(getMappingsFile().get().getAsFile());
 
+        // A single pass over the mappings, only the names which end up in the csv files are retained, sorted as they are collected.
+        final Map<String, String> fieldMappings = new TreeMap<>();
+        final Map<String, String> methodMappings = new TreeMap<>();
         for (IMappingFile.IClass cls : mappingFile.getClasses()) {
             for (IMappingFile.IField fld : cls.getFields()) {
                 String srgFieldName = fld.getOriginal();
@@ -55,29 +51,19 @@ public abstract class GenerateDebuggingMappings extends DefaultRuntime {
             }
         }
 
-        String[] header = new String[]{"searge", "name", "side", "desc"};
-        List<String[]> fields = new ArrayList<>();
-        List<String[]> methods = new ArrayList<>();
-        fields.add(header);
-        methods.add(header);
-
-        for (String name : fieldMappings.keySet()) {
-            String cname = fieldMappings.get(name);
-            fields.add(new String[]{name, cname, "2", ""});
-        }
-
-        for (String name : methodMappings.keySet()) {
-            String cname = methodMappings.get(name);
-            methods.add(new String[]{name, cname, "2", ""});
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(output.toPath()))) {
+            FileUtils.addCsvToZip("fields.csv", HEADER, toRows(fieldMappings), out);
+            FileUtils.addCsvToZip("methods.csv", HEADER, toRows(methodMappings), out);
         }
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(output);
-             ZipOutputStream out = new ZipOutputStream(fos)) {
-            FileUtils.addCsvToZip("fields.csv", fields, out);
-            FileUtils.addCsvToZip("methods.csv", methods, out);
-        }
+    private static Iterable<String[]> toRows(final Map<String, String> mappings) {
+        return () -> mappings.entrySet().stream()
+                .map(mapping -> new String[]{mapping.getKey(), mapping.getValue(), "2", ""})
+                .iterator();
     }
 
-    @Input
-    public abstract Property<CacheableIMappingFile> getMappingsFile();
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getMappingsFile();
 }
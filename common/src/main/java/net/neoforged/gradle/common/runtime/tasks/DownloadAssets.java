@@ -3,6 +3,7 @@ package net.neoforged.gradle.common.runtime.tasks;
 import com.google.common.collect.Maps;
 import net.neoforged.gradle.common.runtime.tasks.action.DownloadFileAction;
 import net.neoforged.gradle.common.services.caching.CachedExecutionService;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
 import net.neoforged.gradle.common.services.caching.jobs.ICacheableJob;
 import net.neoforged.gradle.common.util.FileCacheUtils;
 import net.neoforged.gradle.common.util.SerializationUtils;
@@ -67,6 +68,9 @@ public abstract class DownloadAssets extends DefaultTask implements WithWorkspac
     @ServiceReference(CachedExecutionService.NAME)
     public abstract Property<CachedExecutionService> getCache();
 
+    @ServiceReference(FileHashCacheService.NAME)
+    public abstract Property<FileHashCacheService> getHashCache();
+
     @TaskAction
     public void run() throws IOException {
         getCache().get()
@@ -91,6 +95,7 @@ public abstract class DownloadAssets extends DefaultTask implements WithWorkspac
             params.getSha1().set(assetIndexData.getSha1());
             params.getOutputFile().set(getAssetIndexFile());
             params.getIsOffline().set(getIsOffline());
+            params.getHashCache().set(getHashCache());
         });
 
         executor.await();
@@ -111,6 +116,8 @@ public abstract class DownloadAssets extends DefaultTask implements WithWorkspac
 
             executor.submit(DownloadFileAction.class, params -> {
                 params.getIsOffline().set(getIsOffline());
+                params.getHashCache().set(getHashCache());
+            params.getHashCache().set(getHashCache());
                 params.getShouldValidateHash().set(true);
                 params.getOutputFile().fileProvider(assetFile);
                 params.getUrl().set(assetUrl);
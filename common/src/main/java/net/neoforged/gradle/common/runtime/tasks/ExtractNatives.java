@@ -1,45 +1,71 @@
 package net.neoforged.gradle.common.runtime.tasks;
 
+import net.neoforged.gradle.common.runtime.tasks.action.ExtractNativesAction;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.common.util.FileCacheUtils;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
+import net.neoforged.gradle.util.FileUtils;
 import net.neoforged.gradle.util.TransformerUtils;
 import net.neoforged.gradle.common.runtime.tasks.action.DownloadFileAction;
-import net.neoforged.gradle.common.runtime.tasks.action.ExtractFileAction;
 import net.neoforged.gradle.common.util.VersionJson;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 import org.gradle.workers.WorkQueue;
 import org.gradle.workers.WorkerExecutor;
 
 import javax.inject.Inject;
 import java.io.File;
-
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Extracts the natives of a minecraft version.
+ * <p>
+ * The native archives are downloaded into, and extracted in, a content addressed store in the gradle user home,
+ * which is shared between all projects and versions. The natives directory of this task is only populated with
+ * hard links to the extracted libraries in the store.
+ */
 @CacheableTask()
 public abstract class ExtractNatives extends DefaultRuntime {
 
+    /**
+     * Identifies the way the archives are extracted into the store, change this when the extraction changes.
+     */
+    private static final String EXTRACTION_KEY = "flat-without-meta-inf";
+
     public ExtractNatives() {
         getVersionJson().convention(getVersionJsonFile().map(TransformerUtils.guard(file -> VersionJson.get(file.getAsFile()))));
-        getLibrariesDirectory().convention(getOutputDirectory().map(dir -> dir.dir("libraries")));
+        getNativesDirectory().convention(getOutputDirectory().dir("natives"));
+        getNativesStore().convention(FileCacheUtils.getNativesCacheDirectory(getProject()));
     }
 
     @TaskAction
-    public void extract() {
-        downloadNatives();
-        extractNatives();
-    }
+    public void extract() throws IOException {
+        final List<VersionJson.LibraryDownload> natives = getVersionJson().get().getNatives();
 
-    private void downloadNatives() {
-        final VersionJson versionJson = getVersionJson().get();
+        downloadNatives(natives);
+        extractNatives(natives);
+        linkNatives(natives);
+    }
 
+    private void downloadNatives(final List<VersionJson.LibraryDownload> natives) {
         final WorkQueue executor = getWorkerExecutor().noIsolation();
-        final File librariesDirectory = ensureFileWorkspaceReady(getLibrariesDirectory().get().getAsFile());
+        final boolean isOffline = getProject().getGradle().getStartParameter().isOffline();
 
-        versionJson.getNatives().forEach(library -> {
-            final File outputFile = new File(librariesDirectory, library.getPath());
+        natives.forEach(library -> {
             executor.submit(DownloadFileAction.class, params -> {
-                params.getIsOffline().set(getProject().getGradle().getStartParameter().isOffline());
+                params.getIsOffline().set(isOffline);
+                params.getHashCache().set(getHashCache());
                 params.getShouldValidateHash().set(true);
-                params.getOutputFile().set(outputFile);
+                params.getOutputFile().set(getArchive(library));
                 params.getUrl().set(library.getUrl().toString());
                 params.getSha1().set(library.getSha1());
             });
@@ -48,31 +74,51 @@ public abstract class ExtractNatives extends DefaultRuntime {
         executor.await();
     }
 
-    private void extractNatives() {
-        final VersionJson versionJson = getVersionJson().get();
-
+    private void extractNatives(final List<VersionJson.LibraryDownload> natives) {
         final WorkQueue executor = getWorkerExecutor().noIsolation();
-        final File librariesDirectory = ensureFileWorkspaceReady(getLibrariesDirectory().get().getAsFile());
-
-        versionJson.getNatives().forEach(library -> {
-            final File outputFile = new File(librariesDirectory, library.getPath());
-
-            executor.submit(ExtractFileAction.class, params -> {
-                params.getInputFile().set(outputFile);
-                params.getOutputDirectory().set(getOutputDirectory());
-                params.getShouldOverride().set(true);
-                params.getShouldCleanTarget().set(false);
-                params.getFilter().set(patternFilterable -> patternFilterable.exclude(fileTreeElement -> fileTreeElement.getPath().startsWith("META-INF")));
-                params.getRenamer().set(path -> {
-                    int lastPathSeparatorIndex = path.lastIndexOf('/');
-                    return lastPathSeparatorIndex == -1 ? path : path.substring(lastPathSeparatorIndex);
-                });
+
+        natives.forEach(library -> {
+            executor.submit(ExtractNativesAction.class, params -> {
+                params.getInputFile().set(getArchive(library));
+                params.getOutputDirectory().set(getExtractedDirectory(library));
             });
         });
 
         executor.await();
     }
 
+    private void linkNatives(final List<VersionJson.LibraryDownload> natives) throws IOException {
+        //Later natives win when multiple archives contain the same library, like the extraction into a single directory did.
+        final Map<String, Path> libraries = new LinkedHashMap<>();
+        for (VersionJson.LibraryDownload library : natives) {
+            try (Stream<Path> files = Files.list(getExtractedDirectory(library).toPath())) {
+                files.forEach(file -> libraries.put(file.getFileName().toString(), file));
+            }
+        }
+
+        final Path nativesDirectory = Files.createDirectories(getNativesDirectory().get().getAsFile().toPath());
+        try (Stream<Path> files = Files.list(nativesDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!libraries.containsKey(file.getFileName().toString())) {
+                    FileUtils.delete(file);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Path> library : libraries.entrySet()) {
+            FileMaterializationUtils.materializeFromCache(library.getValue().toFile(), nativesDirectory.resolve(library.getKey()).toFile());
+        }
+    }
+
+    private File getArchive(final VersionJson.LibraryDownload library) {
+        final String path = library.getPath();
+        return new File(getNativesStore().get().getAsFile(), "archives/" + library.getSha1() + "/" + path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private File getExtractedDirectory(final VersionJson.LibraryDownload library) {
+        return new File(getNativesStore().get().getAsFile(), "extracted/" + library.getSha1() + "-" + EXTRACTION_KEY);
+    }
+
     @Inject
     protected abstract WorkerExecutor getWorkerExecutor();
 
@@ -84,6 +130,19 @@ public abstract class ExtractNatives extends DefaultRuntime {
     @Input
     public abstract Property<VersionJson> getVersionJson();
 
+    /**
+     * @return The directory the natives are made available in, defaults to the natives directory inside the output directory of the task.
+     * Files in it which are not natives of the current version are removed, so it should not be shared with anything else.
+     */
     @OutputDirectory
-    public abstract DirectoryProperty getLibrariesDirectory();
+    public abstract DirectoryProperty getNativesDirectory();
+
+    /**
+     * @return The content addressed store the natives are downloaded into and extracted in.
+     */
+    @Internal
+    public abstract DirectoryProperty getNativesStore();
+
+    @ServiceReference(FileHashCacheService.NAME)
+    public abstract Property<FileHashCacheService> getHashCache();
 }
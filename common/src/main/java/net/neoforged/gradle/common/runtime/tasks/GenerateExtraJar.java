@@ -2,11 +2,10 @@ package net.neoforged.gradle.common.runtime.tasks;
 
 import net.neoforged.gradle.common.services.caching.CachedExecutionService;
 import net.neoforged.gradle.common.services.caching.jobs.ICacheableJob;
+import net.neoforged.gradle.common.util.ZipCopyUtils;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
-import net.neoforged.gradle.util.ZipBuildingFileTreeVisitor;
-import org.gradle.api.file.FileTree;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
@@ -17,8 +16,6 @@ import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.zip.ZipOutputStream;
 
 @CacheableTask
 public abstract class GenerateExtraJar extends NeoGradleBase implements WithOutput, WithWorkspace {
@@ -44,15 +41,8 @@ public abstract class GenerateExtraJar extends NeoGradleBase implements WithOutp
         final File originalJar = getOriginalJar().get().getAsFile();
         final File outputJar = ensureFileWorkspaceReady(getOutput());
 
-
-        final FileTree inputTree = getArchiveOperations().zipTree(originalJar);
-        final FileTree filteredInput = inputTree.matching(filter -> {
-            filter.exclude("**/*.class");
-        });
-
-        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(outputJar))) {
-            filteredInput.visit(new ZipBuildingFileTreeVisitor(zos));
-        }
+        // Copy the compressed resources straight out of the original jar, nothing needs to be extracted or deflated again.
+        ZipCopyUtils.copyRaw(originalJar, outputJar, entry -> !entry.getName().endsWith(".class"));
     }
 
     @InputFile
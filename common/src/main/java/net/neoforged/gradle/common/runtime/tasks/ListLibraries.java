@@ -3,6 +3,7 @@ package net.neoforged.gradle.common.runtime.tasks;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import net.neoforged.gradle.common.services.caching.CachedExecutionService;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
 import net.neoforged.gradle.common.services.caching.jobs.ICacheableJob;
 import net.neoforged.gradle.common.runtime.tasks.action.DownloadFileAction;
 import net.neoforged.gradle.common.util.FileCacheUtils;
@@ -56,6 +57,9 @@ public abstract class ListLibraries extends DefaultRuntime {
     @ServiceReference(CachedExecutionService.NAME)
     public abstract Property<CachedExecutionService> getCacheService();
 
+    @ServiceReference(FileHashCacheService.NAME)
+    public abstract Property<FileHashCacheService> getHashCache();
+
     
     @TaskAction
     public void run() throws IOException {
@@ -153,7 +157,7 @@ public abstract class ListLibraries extends DefaultRuntime {
                            final String path = String.format("META-INF/libraries/%s", entry.path);
                            final File output = new File(outputDir, path);
                            try {
-                               if (!output.exists() || !HashFunction.SHA1.hash(output).equalsIgnoreCase(entry.hash)) {
+                               if (!output.exists() || !HashFunction.SHA1.hash(output, FileHashCacheService.getCache(getHashCache())).equalsIgnoreCase(entry.hash)) {
                                    Files.copy(bundleFs.getPath(path), output.toPath());
                                }
                            } catch (IOException e) {
@@ -178,6 +182,7 @@ public abstract class ListLibraries extends DefaultRuntime {
                 params.getSha1().set(libraryCoordinate.hash);
                 params.getOutputFile().set(outputFile);
                 params.getIsOffline().set(getIsOffline());
+                params.getHashCache().set(getHashCache());
             });
             result.add(outputFile);
         }
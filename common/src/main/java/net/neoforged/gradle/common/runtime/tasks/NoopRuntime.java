@@ -1,6 +1,7 @@
 package net.neoforged.gradle.common.runtime.tasks;
 
 import net.minecraftforge.gdi.annotations.DSLProperty;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.InputFile;
@@ -16,14 +17,14 @@ public abstract class NoopRuntime extends DefaultRuntime {
 
     @TaskAction
     void doProvide() throws Exception {
-        final Path output = ensureFileWorkspaceReady(getOutput()).toPath();
+        final Path output = getOutput().get().getAsFile().toPath();
         final Path source = getInput().get().getAsFile().toPath();
 
         if (!Files.exists(source)) {
             throw new IllegalStateException("Source file does not exist: " + source);
         }
 
-        Files.copy(source, output);
+        FileMaterializationUtils.materialize(source.toFile(), output.toFile());
     }
 
     @InputFile
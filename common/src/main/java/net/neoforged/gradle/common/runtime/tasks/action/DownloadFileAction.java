@@ -1,5 +1,7 @@
 package net.neoforged.gradle.common.runtime.tasks.action;
 
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.util.FileHashCache;
 import net.neoforged.gradle.util.FileUtils;
 import net.neoforged.gradle.util.GradleInternalUtils;
 import net.neoforged.gradle.util.HashFunction;
@@ -19,6 +21,8 @@ import org.gradle.workers.WorkParameters;
 import javax.inject.Inject;
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 public abstract class DownloadFileAction implements WorkAction<DownloadFileAction.Params> {
     private static final int MAX_ATTEMPTS = 10;
@@ -33,10 +37,11 @@ public abstract class DownloadFileAction implements WorkAction<DownloadFileActio
         try {
             final Params params = getParameters();
             final File output = params.getOutputFile().get().getAsFile();
+            final FileHashCache hashCache = FileHashCacheService.getCache(params.getHashCache());
 
             if (output.exists()) {
                 if (params.getShouldValidateHash().get()) {
-                    final String hash = HashFunction.SHA1.hash(output);
+                    final String hash = HashFunction.SHA1.hash(output, hashCache);
                     if (hash.equals(params.getSha1().get())) {
                         return;
                     }
@@ -56,7 +61,7 @@ public abstract class DownloadFileAction implements WorkAction<DownloadFileActio
                 progress.started();
 
                 if (params.getShouldValidateHash().get()) {
-                    final String hash = HashFunction.SHA1.hash(output);
+                    final String hash = HashFunction.SHA1.hash(output, hashCache);
                     if (!hash.equals(params.getSha1().get())) {
                         throw new IllegalStateException(String.format("Cannot validate asset %s as Gradle is running in offline mode and the file does not match the expected hash. Expected: %s Actual: %s", params.getUrl().get(), params.getSha1().get(), hash));
                     }
@@ -74,12 +79,20 @@ public abstract class DownloadFileAction implements WorkAction<DownloadFileActio
                 try {
                     progress.setSize(UrlUtils.getFileSize(url));
 
-                    FileUtil.copy(
-                            url,
-                            output,
-                            new Monitor(progress),
-                            Timeout.NONE
-                    );
+                    // Download next to the output and move it into place, the output might live in a store shared by concurrent builds.
+                    final Path parent = Files.createDirectories(output.toPath().toAbsolutePath().getParent());
+                    final Path temporary = FileUtils.temporaryPath(parent, output.getName());
+                    try {
+                        FileUtil.copy(
+                                url,
+                                temporary.toFile(),
+                                new Monitor(progress),
+                                Timeout.NONE
+                        );
+                        FileUtils.atomicMove(temporary, output.toPath());
+                    } finally {
+                        Files.deleteIfExists(temporary);
+                    }
 
                     break; // Success
                 } catch (Exception e) {
@@ -96,7 +109,7 @@ public abstract class DownloadFileAction implements WorkAction<DownloadFileActio
             }
 
             if (params.getShouldValidateHash().get()) {
-                final String hash = HashFunction.SHA1.hash(output);
+                final String hash = HashFunction.SHA1.hash(output, hashCache);
                 if (!hash.equals(params.getSha1().get())) {
                     throw new IllegalStateException(String.format("Cannot validate asset %s as Gradle is running in offline mode and the file does not match the expected hash. Expected: %s Actual: %s", params.getUrl().get(), params.getSha1().get(), hash));
                 }
@@ -151,5 +164,7 @@ public abstract class DownloadFileAction implements WorkAction<DownloadFileActio
         RegularFileProperty getOutputFile();
 
         Property<Boolean> getIsOffline();
+
+        Property<FileHashCacheService> getHashCache();
     }
 }
@@ -0,0 +1,85 @@
+package net.neoforged.gradle.common.runtime.tasks.action;
+
+import net.neoforged.gradle.util.FileUtils;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts a natives archive into a directory of the natives store.
+ * <p>
+ * The libraries are flattened into the root of the directory, and the metadata of the archive is skipped.
+ * The directory is only created once the extraction is complete, so an existing directory is always a finished one
+ * and can be reused as is, by this and any other build that uses the same store.
+ */
+public abstract class ExtractNativesAction implements WorkAction<ExtractNativesAction.Params> {
+
+    @Override
+    public void execute() {
+        final Path output = getParameters().getOutputDirectory().get().getAsFile().toPath();
+        if (Files.isDirectory(output)) {
+            return;
+        }
+
+        final Path input = getParameters().getInputFile().get().getAsFile().toPath();
+        try {
+            final Path parent = Files.createDirectories(output.toAbsolutePath().getParent());
+            final Path temporary = Files.createTempDirectory(parent, "." + output.getFileName());
+            try {
+                extract(input, temporary);
+                try {
+                    Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException | DirectoryNotEmptyException ignored) {
+                    //Another build extracted the same archive concurrently, its result is identical.
+                } catch (AccessDeniedException e) {
+                    //Windows denies replacing a directory instead of reporting that it exists.
+                    if (!Files.isDirectory(output)) {
+                        throw e;
+                    }
+                }
+            } finally {
+                if (Files.exists(temporary)) {
+                    FileUtils.delete(temporary);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to extract the natives from: " + input, e);
+        }
+    }
+
+    private static void extract(final Path input, final Path output) throws IOException {
+        try (ZipFile zip = new ZipFile(input.toFile())) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || entry.getName().startsWith("META-INF")) {
+                    continue;
+                }
+
+                final String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    Files.copy(stream, output.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    public interface Params extends WorkParameters {
+        RegularFileProperty getInputFile();
+
+        DirectoryProperty getOutputDirectory();
+    }
+}
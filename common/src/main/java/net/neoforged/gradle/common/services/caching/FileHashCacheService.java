@@ -0,0 +1,87 @@
+package net.neoforged.gradle.common.services.caching;
+
+import net.neoforged.gradle.util.FileHashCache;
+import org.gradle.api.Project;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+
+/**
+ * Owns the persistent {@link FileHashCache} of a build.
+ * <p>
+ * Code which hashes files gets the cache from this service, either through a service reference or a parameter,
+ * and passes it to the hashing functions explicitly.
+ * New entries are written to the shared store in the gradle user home when the service is closed at the end of the build.
+ */
+public abstract class FileHashCacheService implements BuildService<FileHashCacheService.Parameters>, AutoCloseable {
+
+    public static final String NAME = "FileHashCacheService";
+
+    public static final String ENABLED_PROPERTY = "net.neoforged.gradle.hashing.fileHashCache";
+
+    public interface Parameters extends BuildServiceParameters {
+
+        RegularFileProperty getStore();
+
+        Property<Boolean> getIsEnabled();
+    }
+
+    @Nullable
+    private final FileHashCache cache;
+
+    public FileHashCacheService() {
+        if (getParameters().getIsEnabled().get()) {
+            cache = new FileHashCache(getParameters().getStore().get().getAsFile().toPath());
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * Registers the service once per build.
+     *
+     * @param project The project to register the service for.
+     * @return The provider of the service.
+     */
+    public static Provider<FileHashCacheService> register(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                FileHashCacheService.class,
+                spec -> {
+                    spec.getParameters().getStore().fileValue(new File(project.getGradle().getGradleUserHomeDir(), "caches/ng_hashes/file-hashes.txt"));
+                    spec.getParameters().getIsEnabled().set(project.getProviders().gradleProperty(ENABLED_PROPERTY).map(Boolean::parseBoolean).orElse(true));
+                }
+        );
+    }
+
+    /**
+     * @return The cache, or {@code null} if it is disabled for this build.
+     */
+    @Nullable
+    public FileHashCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the cache of the given service, if there is one.
+     *
+     * @param service The provider of the service, which might not be set.
+     * @return The cache, or {@code null} if there is no service or the cache is disabled.
+     */
+    @Nullable
+    public static FileHashCache getCache(Provider<FileHashCacheService> service) {
+        return service.isPresent() ? service.get().getCache() : null;
+    }
+
+    @Override
+    public void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+}
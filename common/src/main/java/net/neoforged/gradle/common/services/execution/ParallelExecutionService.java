@@ -0,0 +1,58 @@
+package net.neoforged.gradle.common.services.execution;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the thread pool which is shared by all operations that split their work into independent shards.
+ * <p>
+ * Concurrently running tasks submit their shards to this single pool, instead of each starting their own threads,
+ * so the amount of threads is bounded by the maximal amount of workers of the build.
+ */
+public abstract class ParallelExecutionService implements BuildService<ParallelExecutionService.Parameters>, AutoCloseable {
+
+    public static final String NAME = "ParallelExecutionService";
+
+    public interface Parameters extends BuildServiceParameters {
+
+        Property<Integer> getMaxParallelism();
+    }
+
+    private final ExecutorService executor;
+
+    public ParallelExecutionService() {
+        final AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, getParameters().getMaxParallelism().get()), runnable -> {
+            final Thread thread = new Thread(runnable, "NeoGradle parallel worker " + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Provider<ParallelExecutionService> register(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                ParallelExecutionService.class,
+                spec -> spec.getParameters().getMaxParallelism().set(project.getGradle().getStartParameter().getMaxWorkerCount())
+        );
+    }
+
+    /**
+     * @return The shared executor, it is owned by this service and must not be shut down by its users.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package net.neoforged.gradle.common.services.ide;
+
+import net.neoforged.gradle.common.util.FileIdentity;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.intellij.lang.annotations.Language;
+import org.jetbrains.annotations.Nullable;
+import org.xml.sax.InputSource;
+
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A build scoped model of the IntelliJ project the build is imported into.
+ * <p>
+ * The run configurations and mod classes of every run and source set look up the same few IntelliJ project files,
+ * this service parses each of them once and answers from memory until the file changes on disk.
+ */
+public abstract class IdeaProjectMetadataService implements BuildService<BuildServiceParameters.None> {
+
+    public static final String NAME = "IdeaProjectMetadataService";
+
+    @Language("xpath")
+    public static final String IDEA_OUTPUT_XPATH = "/project/component[@name='ProjectRootManager']/output/@url";
+
+    private static final String DELEGATED_BUILD_DISABLED = "<option name=\"delegatedBuild\" value=\"false\" />";
+
+    private final Map<FileIdentity, Optional<String>> outputDirectoryUrls = new ConcurrentHashMap<>();
+    private final Map<FileIdentity, Boolean> delegatedBuildDisabled = new ConcurrentHashMap<>();
+
+    public static Provider<IdeaProjectMetadataService> register(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                IdeaProjectMetadataService.class,
+                spec -> {}
+        );
+    }
+
+    /**
+     * Gets the url of the project output directory configured in the misc.xml of the given IntelliJ project directory.
+     *
+     * @param ideaDir The .idea directory of the IntelliJ project.
+     * @return The configured url, or {@code null} if none is configured.
+     */
+    @Nullable
+    public String getOutputDirectoryUrl(final File ideaDir) {
+        final File miscXml = new File(ideaDir, "misc.xml");
+        return outputDirectoryUrls.computeIfAbsent(FileIdentity.of(miscXml), identity -> Optional.ofNullable(evaluateXPath(miscXml, IDEA_OUTPUT_XPATH))).orElse(null);
+    }
+
+    /**
+     * Indicates whether the given gradle.xml of an IntelliJ project disables delegating builds and runs to gradle.
+     *
+     * @param gradleXml The gradle.xml file of the IntelliJ project.
+     * @return {@code true} if IntelliJ builds and runs the project itself.
+     */
+    public boolean isDelegatedBuildDisabled(final File gradleXml) {
+        return delegatedBuildDisabled.computeIfAbsent(FileIdentity.of(gradleXml), identity -> {
+            try {
+                return new String(Files.readAllBytes(gradleXml.toPath()), StandardCharsets.UTF_8).contains(DELEGATED_BUILD_DISABLED);
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    @SuppressWarnings("SameParameterValue")
+    @Nullable
+    private static String evaluateXPath(File file, @Language("xpath") String expression) {
+        try (var fis = new FileInputStream(file)) {
+            String result = XPathFactory.newInstance().newXPath().evaluate(expression, new InputSource(fis));
+            return result.isBlank() ? null : result;
+        } catch (FileNotFoundException | XPathExpressionException ignored) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to evaluate xpath " + expression + " on file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package net.neoforged.gradle.common.services.metadata;
+
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.common.util.FileDownloadingUtils;
+import net.neoforged.gradle.dsl.common.util.CacheFileSelector;
+import net.neoforged.gradle.dsl.common.util.MinecraftVersionAndUrl;
+import net.neoforged.gradle.util.HashFunction;
+import net.neoforged.gradle.util.UrlConstants;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A build scoped store of the game artifacts (launcher metadata, version metadata, jars and mappings).
+ * <p>
+ * Every artifact is downloaded (or validated) at most once per build into the shared cache directory in the gradle user home,
+ * regardless of how many projects, runtimes or tasks request it.
+ */
+public abstract class MinecraftArtifactCacheService implements BuildService<MinecraftArtifactCacheService.Parameters> {
+
+    public static final String NAME = "MinecraftArtifactCacheService";
+
+    public static final String DIRECTORY_NAME = "caches/minecraft";
+
+    private final Map<String, File> cacheFiles = new ConcurrentHashMap<>();
+
+    public interface Parameters extends BuildServiceParameters {
+
+        DirectoryProperty getCacheDirectory();
+
+        Property<Boolean> getIsOffline();
+
+        Property<MinecraftMetadataIndexService> getMetadataIndex();
+
+        Property<FileHashCacheService> getHashCache();
+    }
+
+    public static Provider<MinecraftArtifactCacheService> register(Project project) {
+        final Provider<MinecraftMetadataIndexService> metadataIndex = MinecraftMetadataIndexService.register(project);
+        final Provider<FileHashCacheService> hashCache = FileHashCacheService.register(project);
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                MinecraftArtifactCacheService.class,
+                spec -> {
+                    spec.getParameters().getCacheDirectory().set(new File(project.getGradle().getGradleUserHomeDir(), DIRECTORY_NAME));
+                    spec.getParameters().getIsOffline().set(project.getGradle().getStartParameter().isOffline());
+                    spec.getParameters().getMetadataIndex().set(metadataIndex);
+                    spec.getParameters().getHashCache().set(hashCache);
+                }
+        );
+    }
+
+    /**
+     * @return The metadata index used to read the cached metadata files.
+     */
+    public MinecraftMetadataIndexService getMetadataIndex() {
+        return getParameters().getMetadataIndex().get();
+    }
+
+    /**
+     * Caches the launcher metadata.
+     *
+     * @return The cached launcher metadata file.
+     */
+    public File cacheLauncherMetadata() {
+        return cache(UrlConstants.MOJANG_MANIFEST, CacheFileSelector.launcherMetadata());
+    }
+
+    /**
+     * Resolves the given game version against the cached launcher metadata.
+     *
+     * @param gameVersion The game version, {@code +} selects the latest version.
+     * @return The resolved version.
+     */
+    public MinecraftVersionAndUrl resolveVersion(final String gameVersion) {
+        final MinecraftVersionAndUrl version = getMetadataIndex().getLauncherManifest(cacheLauncherMetadata()).find(gameVersion);
+        if (version == null) {
+            throw new IllegalStateException("Could not find the correct version json for version: " + gameVersion);
+        }
+
+        return version;
+    }
+
+    /**
+     * Caches the version metadata of the given resolved version.
+     *
+     * @param resolvedVersion The resolved version.
+     * @return The cached version metadata file.
+     */
+    public File cacheVersionManifest(final MinecraftVersionAndUrl resolvedVersion) {
+        return cache(resolvedVersion.getUrl(), CacheFileSelector.forVersionJson(resolvedVersion.getVersion()));
+    }
+
+    /**
+     * Caches the json file at the given url.
+     *
+     * @param url The url of the file.
+     * @param selector The selector which determines the location of the file in the cache.
+     * @return The cached file.
+     */
+    public File cache(final String url, final CacheFileSelector selector) {
+        return cacheFiles.computeIfAbsent(keyOf(selector), key -> {
+            final File cacheFile = fileOf(selector);
+            FileDownloadingUtils.downloadThrowing(getParameters().getIsOffline().get(), new FileDownloadingUtils.DownloadInfo(url, null, "json", null, null), cacheFile);
+            return cacheFile;
+        });
+    }
+
+    /**
+     * Caches a download of the given version, for example its client jar or server mappings.
+     *
+     * @param resolvedVersion The resolved version.
+     * @param artifact The name of the download in the version metadata.
+     * @param selector The selector which determines the location of the file in the cache.
+     * @return The cached file.
+     */
+    public File cacheVersionDownload(final MinecraftVersionAndUrl resolvedVersion, final String artifact, final CacheFileSelector selector) {
+        return cacheVersionDownload(cacheVersionManifest(resolvedVersion), artifact, selector);
+    }
+
+    /**
+     * Caches a download described by the given version metadata file.
+     *
+     * @param versionManifest The version metadata file.
+     * @param artifact The name of the download in the version metadata.
+     * @param selector The selector which determines the location of the file in the cache.
+     * @return The cached file.
+     */
+    public File cacheVersionDownload(final File versionManifest, final String artifact, final CacheFileSelector selector) {
+        return cacheFiles.computeIfAbsent(keyOf(selector), key -> {
+            final MinecraftMetadataIndexService.VersionMetadata metadata = getMetadataIndex().getVersionMetadata(versionManifest);
+            final MinecraftMetadataIndexService.Download download = metadata.getDownload(artifact);
+
+            final FileDownloadingUtils.DownloadInfo info = new FileDownloadingUtils.DownloadInfo(download.getUrl(), download.getSha1(), "jar", metadata.getId(), artifact);
+            final File cacheFile = fileOf(selector);
+
+            try {
+                if (cacheFile.exists() && HashFunction.SHA1.hash(cacheFile, FileHashCacheService.getCache(getParameters().getHashCache())).equals(download.getSha1())) {
+                    return cacheFile;
+                }
+
+                FileDownloadingUtils.downloadTo(getParameters().getIsOffline().get(), info, cacheFile);
+                return cacheFile;
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("Failed to download game artifact %s for %s", artifact, metadata.getId()), e);
+            }
+        });
+    }
+
+    private File fileOf(final CacheFileSelector selector) {
+        return new File(new File(getParameters().getCacheDirectory().get().getAsFile(), selector.getCacheDirectory()), selector.getCacheFileName());
+    }
+
+    private static String keyOf(final CacheFileSelector selector) {
+        //Selectors only compare their file name, so e.g. the client.jar of different versions would be equal.
+        //Key by the full location they describe instead.
+        return selector.getCacheDirectory() + "/" + selector.getCacheFileName();
+    }
+}
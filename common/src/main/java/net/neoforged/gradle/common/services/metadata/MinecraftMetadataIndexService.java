@@ -0,0 +1,286 @@
+package net.neoforged.gradle.common.services.metadata;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.common.util.SerializationUtils;
+import net.neoforged.gradle.dsl.common.util.MinecraftVersionAndUrl;
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
+import org.gradle.api.Project;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A build scoped cache of the parsed launcher manifest and version metadata files.
+ * <p>
+ * The parsed data is keyed by the hash of the file it was read from, and is additionally stored in a compact
+ * index in the gradle user home, so that warm builds never need to parse the (multi megabyte) json files at all.
+ * There is a single index per metadata file, it records the hash of the content it was built from and is
+ * overwritten when the file changes, for example when a new launcher manifest is downloaded.
+ */
+public abstract class MinecraftMetadataIndexService implements BuildService<MinecraftMetadataIndexService.Parameters> {
+
+    public static final String NAME = "MinecraftMetadataIndexService";
+
+    public static final String DIRECTORY_NAME = "caches/minecraft/metadata_index";
+
+    private static final String SEPARATOR = "\t";
+
+    private final Map<String, LauncherManifest> launcherManifests = new ConcurrentHashMap<>();
+    private final Map<String, VersionMetadata> versionMetadata = new ConcurrentHashMap<>();
+
+    public interface Parameters extends BuildServiceParameters {
+
+        DirectoryProperty getIndexDirectory();
+
+        Property<FileHashCacheService> getHashCache();
+    }
+
+    public static Provider<MinecraftMetadataIndexService> register(Project project) {
+        final Provider<FileHashCacheService> hashCache = FileHashCacheService.register(project);
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                MinecraftMetadataIndexService.class,
+                spec -> {
+                    spec.getParameters().getIndexDirectory().set(new File(project.getGradle().getGradleUserHomeDir(), DIRECTORY_NAME));
+                    spec.getParameters().getHashCache().set(hashCache);
+                }
+        );
+    }
+
+    /**
+     * Gets the parsed launcher manifest stored in the given file.
+     *
+     * @param file The launcher manifest file.
+     * @return The parsed launcher manifest.
+     */
+    public LauncherManifest getLauncherManifest(final File file) {
+        return get(launcherManifests, "launcher", file, LauncherManifest::parse, LauncherManifest::read, LauncherManifest::write);
+    }
+
+    /**
+     * Gets the parsed version metadata stored in the given file.
+     *
+     * @param file The version metadata file.
+     * @return The parsed version metadata.
+     */
+    public VersionMetadata getVersionMetadata(final File file) {
+        return get(versionMetadata, "version", file, VersionMetadata::parse, VersionMetadata::read, VersionMetadata::write);
+    }
+
+    private <T> T get(final Map<String, T> memory, final String type, final File file, final Function<File, T> parser, final Function<List<String>, T> reader, final Function<T, List<String>> writer) {
+        final String hash;
+        try {
+            hash = HashFunction.SHA1.hash(file, FileHashCacheService.getCache(getParameters().getHashCache()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to hash metadata file: " + file, e);
+        }
+
+        return memory.computeIfAbsent(hash, key -> {
+            //The index is named after the metadata file, not its content, so a changed file replaces its index instead of adding one.
+            final Path indexFile = getParameters().getIndexDirectory().get().getAsFile().toPath().resolve(type + "-" + HashFunction.SHA1.hash(file.getAbsolutePath()) + ".idx");
+            if (Files.exists(indexFile)) {
+                try {
+                    final List<String> lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+                    if (!lines.isEmpty() && lines.get(0).equals(key)) {
+                        return reader.apply(lines.subList(1, lines.size()));
+                    }
+                } catch (IOException | RuntimeException ignored) {
+                    //Broken index, we will reparse and rewrite it.
+                }
+            }
+
+            final T parsed = parser.apply(file);
+            try {
+                Files.createDirectories(indexFile.getParent());
+                final List<String> lines = new ArrayList<>();
+                lines.add(key);
+                lines.addAll(writer.apply(parsed));
+
+                final Path temporary = FileUtils.temporaryPath(indexFile.getParent(), type);
+                Files.write(temporary, lines, StandardCharsets.UTF_8);
+                FileUtils.atomicMove(temporary, indexFile);
+            } catch (IOException ignored) {
+                //The index is purely an optimization, if we can not write it we will just parse the json next time.
+            }
+            return parsed;
+        });
+    }
+
+    /**
+     * The parsed launcher manifest, containing all known versions and the urls of their metadata files.
+     */
+    public static final class LauncherManifest {
+        private final Map<String, String> versions;
+
+        private LauncherManifest(Map<String, String> versions) {
+            this.versions = Collections.unmodifiableMap(versions);
+        }
+
+        /**
+         * Finds the given version in the manifest.
+         *
+         * @param gameVersion The version to find, {@code +} selects the latest version.
+         * @return The version and the url of its metadata, or {@code null} if the version is unknown.
+         */
+        @Nullable
+        public MinecraftVersionAndUrl find(final String gameVersion) {
+            if (gameVersion.equals("+")) {
+                return versions.entrySet().stream()
+                        .findFirst()
+                        .map(entry -> new MinecraftVersionAndUrl(entry.getKey(), entry.getValue()))
+                        .orElse(null);
+            }
+
+            final String url = versions.get(gameVersion);
+            return url == null ? null : new MinecraftVersionAndUrl(gameVersion, url);
+        }
+
+        private static LauncherManifest parse(final File file) {
+            final JsonObject json = SerializationUtils.fromJson(file, JsonObject.class);
+            final Map<String, String> versions = new LinkedHashMap<>();
+            for (JsonElement e : json.getAsJsonArray("versions")) {
+                versions.putIfAbsent(e.getAsJsonObject().get("id").getAsString(), e.getAsJsonObject().get("url").getAsString());
+            }
+            return new LauncherManifest(versions);
+        }
+
+        private static LauncherManifest read(final List<String> lines) {
+            final Map<String, String> versions = new LinkedHashMap<>();
+            for (String line : lines) {
+                final String[] parts = line.split(SEPARATOR);
+                if (parts.length != 2) {
+                    throw new IllegalStateException("Invalid launcher manifest index line: " + line);
+                }
+                versions.put(parts[0], parts[1]);
+            }
+            return new LauncherManifest(versions);
+        }
+
+        private static List<String> write(final LauncherManifest manifest) {
+            final List<String> lines = new ArrayList<>(manifest.versions.size());
+            manifest.versions.forEach((id, url) -> lines.add(id + SEPARATOR + url));
+            return lines;
+        }
+    }
+
+    /**
+     * The parsed version metadata, containing the downloads of a single version.
+     */
+    public static final class VersionMetadata {
+        private final String id;
+        private final Map<String, Download> downloads;
+
+        private VersionMetadata(String id, Map<String, Download> downloads) {
+            this.id = id;
+            this.downloads = Collections.unmodifiableMap(downloads);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Gets the download with the given name.
+         *
+         * @param artifact The name of the download, for example {@code client} or {@code server_mappings}.
+         * @return The download.
+         * @throws IllegalStateException If the version does not have the requested download.
+         */
+        public Download getDownload(final String artifact) {
+            final Download download = downloads.get(artifact);
+            if (download == null) {
+                throw new IllegalStateException("Version: " + id + " does not have a download for: " + artifact);
+            }
+            return download;
+        }
+
+        private static VersionMetadata parse(final File file) {
+            final JsonObject json = SerializationUtils.fromJson(file, JsonObject.class);
+            final Map<String, Download> downloads = new LinkedHashMap<>();
+            if (json.has("downloads")) {
+                for (Map.Entry<String, JsonElement> entry : json.getAsJsonObject("downloads").entrySet()) {
+                    final JsonObject download = entry.getValue().getAsJsonObject();
+                    downloads.put(entry.getKey(), new Download(download.get("url").getAsString(), download.get("sha1").getAsString()));
+                }
+            }
+            return new VersionMetadata(json.get("id").getAsString(), downloads);
+        }
+
+        private static VersionMetadata read(final List<String> lines) {
+            if (lines.isEmpty()) {
+                throw new IllegalStateException("Empty version metadata index");
+            }
+
+            final Map<String, Download> downloads = new LinkedHashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                final String[] parts = line.split(SEPARATOR);
+                if (parts.length != 3) {
+                    throw new IllegalStateException("Invalid version metadata index line: " + line);
+                }
+                downloads.put(parts[0], new Download(parts[1], parts[2]));
+            }
+            return new VersionMetadata(lines.get(0), downloads);
+        }
+
+        private static List<String> write(final VersionMetadata metadata) {
+            final List<String> lines = new ArrayList<>(metadata.downloads.size() + 1);
+            lines.add(metadata.id);
+            metadata.downloads.forEach((artifact, download) -> lines.add(artifact + SEPARATOR + download.getUrl() + SEPARATOR + download.getSha1()));
+            return lines;
+        }
+    }
+
+    /**
+     * A single download of a version.
+     */
+    public static final class Download {
+        private final String url;
+        private final String sha1;
+
+        private Download(String url, String sha1) {
+            this.url = url;
+            this.sha1 = sha1;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getSha1() {
+            return sha1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Download download = (Download) o;
+            return url.equals(download.url) && sha1.equals(download.sha1);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, sha1);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package net.neoforged.gradle.common.tasks;
 
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
-import org.apache.commons.io.FileUtils;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.*;
 import org.gradle.work.DisableCachingByDefault;
@@ -17,7 +17,7 @@ public abstract class ArtifactFromOutput extends NeoGradleBase implements WithOu
 
     @TaskAction
     public void doCopy() throws Exception {
-        FileUtils.copyFile(getInput().getAsFile().get(), getOutput().getAsFile().get(), true);
+        FileMaterializationUtils.materialize(getInput().getAsFile().get(), getOutput().getAsFile().get());
     }
 
     @InputFile
@@ -1,15 +1,14 @@
 package net.neoforged.gradle.common.tasks;
 
-import com.google.gson.JsonObject;
-import net.neoforged.gradle.common.util.FileDownloadingUtils;
-import net.neoforged.gradle.common.util.SerializationUtils;
+import net.neoforged.gradle.common.services.metadata.MinecraftArtifactCacheService;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import net.neoforged.gradle.dsl.common.util.CacheFileSelector;
-import net.neoforged.gradle.util.HashFunction;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
@@ -42,33 +41,24 @@ public abstract class FileCacheProviding extends NeoGradleBase implements WithOu
     @Input
     public abstract Property<Boolean> getIsOffline();
     
+    @ServiceReference(MinecraftArtifactCacheService.NAME)
+    public abstract Property<MinecraftArtifactCacheService> getArtifactCache();
+
     protected void downloadJsonTo(String url) {
-        final File output = getOutput().get().getAsFile();
-        FileDownloadingUtils.DownloadInfo info = new FileDownloadingUtils.DownloadInfo(url, null, "json", null, null);
-        boolean didWork = FileDownloadingUtils.downloadThrowing(getIsOffline().get(), info, output);
-        setDidWork(didWork);
+        final File cached = getArtifactCache().get().cache(url, getSelector().get());
+        materialize(cached, "Failed to provide json from: " + url);
     }
     
     protected File doDownloadVersionDownloadToCache(final String artifact, final String potentialError, File versionManifest) {
-        JsonObject json = SerializationUtils.fromJson(versionManifest, JsonObject.class);
-
-        final JsonObject artifactInfo = json.getAsJsonObject("downloads").getAsJsonObject(artifact);
-        final String url = artifactInfo.get("url").getAsString();
-        final String hash = artifactInfo.get("sha1").getAsString();
-        final String version = json.getAsJsonObject().get("id").getAsString();
-
-        final FileDownloadingUtils.DownloadInfo info = new FileDownloadingUtils.DownloadInfo(url, hash, "jar", version, artifact);
+        final File cached = getArtifactCache().get().cacheVersionDownload(versionManifest, artifact, getSelector().get());
+        return materialize(cached, potentialError);
+    }
 
+    private File materialize(final File cached, final String potentialError) {
+        //The build wide cache holds the actual file, the task output is only a link to it.
         final File output = getOutput().get().getAsFile();
         try {
-            if (output.exists()) {
-                final String fileHash = HashFunction.SHA1.hash(output);
-                if (fileHash.equals(hash)) {
-                    return output;
-                }
-            }
-
-            FileDownloadingUtils.downloadTo(getIsOffline().get(), info, output);
+            setDidWork(FileMaterializationUtils.materializeFromCache(cached, output) != FileMaterializationUtils.Strategy.REUSED);
             return output;
         } catch (IOException e) {
             throw new RuntimeException(potentialError, e);
@@ -8,27 +8,46 @@ import net.neoforged.gradle.common.manifest.InheritManifest;
 import net.neoforged.gradle.dsl.common.dependency.DependencyFilter;
 import net.neoforged.gradle.dsl.common.dependency.DependencyVersionInformationHandler;
 import net.neoforged.jarjar.metadata.Metadata;
+import net.neoforged.gradle.util.HashFunction;
 import net.neoforged.jarjar.metadata.MetadataIOHandler;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.file.CopySpec;
 import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.file.FileCopyDetails;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.WorkResults;
 import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.bundling.ZipEntryCompression;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 
 public abstract class JarJar extends Jar {
 
+    private static final String NESTED_JARS_DIRECTORY = "META-INF/jarjar/";
+    // The same timestamp gradle uses for the entries of its archives when file timestamps are not preserved.
+    private static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+
     private final CopySpec jarJarCopySpec;
     private final JarJarArtifacts artifacts;
 
@@ -37,7 +56,7 @@ public abstract class JarJar extends Jar {
             getProject().getExtensions().getByType(NeoGradleProblemReporter.class)
         );
         this.jarJarCopySpec = this.getMainSpec().addChild();
-        this.jarJarCopySpec.into("META-INF/jarjar");
+        this.jarJarCopySpec.into(NESTED_JARS_DIRECTORY);
 
         setDuplicatesStrategy(DuplicatesStrategy.EXCLUDE); //As opposed to shadow, we do not filter out our entries early!, So we need to handle them accordingly.
         setManifest(new DefaultInheritManifest(getServices().get(FileResolver.class)));
@@ -82,28 +101,97 @@ public abstract class JarJar extends Jar {
         this.jarJarCopySpec.from(
                 includedJars.stream().map(ResolvedJarJarArtifact::getFile).collect(Collectors.toList())
         );
-        if (!writeMetadata(includedJars).jars().isEmpty()) {
+        if (writeMetadata(includedJars)) {
             // Only copy metadata if not empty.
             this.jarJarCopySpec.from(getJarJarMetadataPath().toFile());
         }
         super.copy();
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private Metadata writeMetadata(List<ResolvedJarJarArtifact> includedJars) {
+    /**
+     * Writes the archive like a normal jar, except that the nested jars are stored instead of deflated.
+     * <p>
+     * The nested jars are already compressed, deflating them again only costs time, and stored entries can be read
+     * directly by the runtime without inflating them first. Gradle can only configure the compression of a whole archive,
+     * so the entries of the copy spec are written by this task itself.
+     */
+    @Override
+    protected CopyAction createCopyAction() {
+        final File archive = getArchiveFile().get().getAsFile();
+        final int defaultMethod = getEntryCompression() == ZipEntryCompression.STORED ? ZipEntry.STORED : ZipEntry.DEFLATED;
+        final Zip64Mode zip64Mode = isZip64() ? Zip64Mode.AsNeeded : Zip64Mode.Never;
+        final String metadataCharset = getMetadataCharset();
+        final boolean preserveFileTimestamps = isPreserveFileTimestamps();
+
+        return stream -> {
+            try (ZipArchiveOutputStream output = new ZipArchiveOutputStream(archive)) {
+                output.setUseZip64(zip64Mode);
+                output.setMethod(defaultMethod);
+                if (metadataCharset != null) {
+                    output.setEncoding(metadataCharset);
+                }
+
+                stream.process(details -> {
+                    final String path = details.getRelativePath().getPathString();
+                    final ZipArchiveEntry entry = new ZipArchiveEntry(details.isDirectory() ? path + "/" : path);
+                    entry.setTime(preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES);
+                    entry.setUnixMode((details.isDirectory() ? UnixStat.DIR_FLAG : UnixStat.FILE_FLAG) | details.getPermissions().toUnixNumeric());
+                    if (isNestedJar(details)) {
+                        entry.setMethod(ZipEntry.STORED);
+                    }
+
+                    try {
+                        output.putArchiveEntry(entry);
+                        if (!details.isDirectory()) {
+                            details.copyTo(output);
+                        }
+                        output.closeArchiveEntry();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not add " + path + " to: " + archive, e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write the archive: " + archive, e);
+            }
+            return WorkResults.didWork(true);
+        };
+    }
+
+    private static boolean isNestedJar(FileCopyDetails details) {
+        final String path = details.getRelativePath().getPathString();
+        return !details.isDirectory() && path.startsWith(NESTED_JARS_DIRECTORY) && path.endsWith(".jar");
+    }
+
+    /**
+     * Writes the metadata of the included jars, unless the metadata written by a previous run describes the same jars.
+     *
+     * @return {@code true} if there is metadata to include.
+     */
+    private boolean writeMetadata(List<ResolvedJarJarArtifact> includedJars) {
         final Path metadataPath = getJarJarMetadataPath();
-        final Metadata metadata = createMetadata(includedJars);
+        final Path fingerprintPath = getJarJarMetadataFingerprintPath();
 
-        if (!metadata.jars().isEmpty()) {
-            try {
-                metadataPath.toFile().getParentFile().mkdirs();
+        try {
+            if (includedJars.isEmpty()) {
                 Files.deleteIfExists(metadataPath);
-                Files.write(metadataPath, MetadataIOHandler.toLines(metadata), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to write JarJar dependency metadata to disk.", e);
+                Files.deleteIfExists(fingerprintPath);
+                return false;
+            }
+
+            final String fingerprint = createMetadataFingerprint(includedJars);
+            if (Files.isRegularFile(metadataPath) && Files.isRegularFile(fingerprintPath)
+                    && fingerprint.equals(new String(Files.readAllBytes(fingerprintPath), StandardCharsets.UTF_8))) {
+                return true;
             }
+
+            Files.createDirectories(metadataPath.getParent());
+            Files.deleteIfExists(fingerprintPath);
+            Files.write(metadataPath, MetadataIOHandler.toLines(createMetadata(includedJars)), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            Files.write(fingerprintPath, fingerprint.getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write JarJar dependency metadata to disk.", e);
         }
-        return metadata;
     }
 
     public void configuration(Configuration jarJarConfiguration) {
@@ -120,6 +208,19 @@ public abstract class JarJar extends Jar {
         return getTemporaryDir().toPath().resolve("metadata.json");
     }
 
+    private Path getJarJarMetadataFingerprintPath() {
+        return getTemporaryDir().toPath().resolve("metadata.fingerprint");
+    }
+
+    /**
+     * The metadata only depends on the coordinates, versions and file names of the included jars.
+     */
+    private static String createMetadataFingerprint(List<ResolvedJarJarArtifact> jars) {
+        return HashFunction.SHA1.hash(jars.stream()
+                .map(jar -> String.join("\t", jar.getGroup(), jar.getArtifact(), jar.getVersion(), jar.getVersionRange(), jar.getFile().getName()))
+                .collect(Collectors.joining("\n")));
+    }
+
     private Metadata createMetadata(List<ResolvedJarJarArtifact> jars) {
         return new Metadata(
                 jars.stream()
@@ -5,15 +5,15 @@
 
 package net.neoforged.gradle.common.tasks;
 
-import com.google.common.collect.Maps;
 import groovy.lang.Closure;
+import net.neoforged.gradle.common.util.JarSigningUtils;
+import net.neoforged.gradle.common.util.ZipEntryFileTreeElement;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import net.neoforged.gradle.util.FileUtils;
-import net.neoforged.gradle.util.ZipBuildingFileTreeVisitor;
+import net.neoforged.gradle.util.HashFunction;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.NonNullApi;
-import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.RegularFile;
 import org.gradle.api.file.RegularFileProperty;
@@ -22,31 +22,37 @@ import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.*;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 @CacheableTask
 @NonNullApi
 public abstract class PotentiallySignJar extends DefaultTask implements PatternFilterable, WithOutput, WithWorkspace {
+    private static final String SIGNATURE_CACHE_KEY_ENTRY = "key";
+    
     private final PatternSet patternSet = new PatternSet();
     
     public PotentiallySignJar() {
         getOutputFileName().convention(getInput().map(RegularFile::getAsFile).map(file -> FileUtils.postFixClassifier(file, "signed")));
         getOutput().convention(getOutputFileName().flatMap(fileName -> getLayout().getBuildDirectory().dir("libs").map(libsDir -> libsDir.file(fileName))));
+        getSignatureCache().convention(getLayout().getBuildDirectory().dir("signatures").map(dir -> dir.file(getName() + ".zip")));
     }
     
     @TaskAction
     public void doTask() throws IOException {
-        final Map<String, Entry<byte[], Long>> ignoredStuff = Maps.newHashMap();
-        
-        
         File input = getInput().get().getAsFile();
         File output = ensureFileWorkspaceReady(getOutput());
         
@@ -55,46 +61,82 @@ public abstract class PotentiallySignJar extends DefaultTask implements PatternF
             return;
         }
         
-        File toSign = ensureFileWorkspaceReady(new File(getTemporaryDir(), input.getName() + ".unsigned.tmp"));
-        File signed = ensureFileWorkspaceReady(new File(getTemporaryDir(), input.getName() + ".signed.tmp"));
-        
-        // load in input jar, and create temp jar
-        processInputJar(input, toSign);
-        
-        // SIGN!
-        Map<String, Object> map = Maps.newHashMap();
-        map.put("alias", getAlias().get());
-        map.put("storePass", getStorePass().get());
-        map.put("jar", toSign.getAbsolutePath());
-        map.put("signedJar", signed.getAbsolutePath());
-        
-        if (getKeyPass().isPresent()) map.put("keypass", getKeyPass().get());
-        if (getKeyStore().isPresent()) map.put("keyStore", getKeyStore().get());
+        final JarSigningUtils.SigningKey key = JarSigningUtils.SigningKey.load(
+                getKeyStore().getOrNull(),
+                getStorePass().get(),
+                getAlias().get(),
+                getKeyPass().getOrNull()
+        );
         
-        getAnt().invokeMethod("signjar", map);
+        // The signature only depends on the input, the signed entries and the key, so it can be reused when none of them changed.
+        final File signatureCache = getSignatureCache().get().getAsFile();
+        final String cacheKey = createSignatureCacheKey(input, key);
+        Map<String, byte[]> signatureEntries = cacheKey == null ? null : readSignatureCache(signatureCache, cacheKey);
+        if (signatureEntries == null) {
+            final Spec<FileTreeElement> shouldSign = patternSet.getAsSpec();
+            signatureEntries = JarSigningUtils.createSignatureEntries(input, entry -> shouldSign.isSatisfiedBy(new ZipEntryFileTreeElement(entry)), key);
+            if (cacheKey != null) {
+                writeSignatureCache(signatureCache, cacheKey, signatureEntries);
+            }
+        }
         
-        // write out
-        writeOutputJar(signed, input, output);
+        JarSigningUtils.writeSignedJar(input, signatureEntries, output);
     }
     
-    private void processInputJar(File inputJar, File toSign) throws IOException {
-        final FileTree inputFileTree = getArchiveOperations().zipTree(inputJar);
-        try (OutputStream toSignOutputStream = new FileOutputStream(toSign); ZipOutputStream toSignZipOutputStream = new ZipOutputStream(toSignOutputStream)) {
+    @Nullable
+    private String createSignatureCacheKey(File input, JarSigningUtils.SigningKey key) throws IOException {
+        if (!patternSet.getIncludeSpecs().isEmpty() || !patternSet.getExcludeSpecs().isEmpty()) {
+            // Specs can not be fingerprinted, so we can not know whether the same entries would be signed.
+            return null;
+        }
+        
+        return HashFunction.SHA256.hash(String.join("\n",
+                HashFunction.SHA256.hash(input),
+                key.getFingerprint(),
+                new TreeSet<>(patternSet.getIncludes()).toString(),
+                new TreeSet<>(patternSet.getExcludes()).toString()
+        ));
+    }
+    
+    @Nullable
+    private static Map<String, byte[]> readSignatureCache(File signatureCache, String cacheKey) {
+        if (!signatureCache.isFile()) {
+            return null;
+        }
+        
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream(signatureCache))) {
+            final ZipEntry keyEntry = zip.getNextEntry();
+            if (keyEntry == null || !keyEntry.getName().equals(SIGNATURE_CACHE_KEY_ENTRY)
+                    || !new String(zip.readAllBytes(), StandardCharsets.UTF_8).equals(cacheKey)) {
+                return null;
+            }
             
-            ZipBuildingFileTreeVisitor toSignBuilder = new ZipBuildingFileTreeVisitor(toSignZipOutputStream);
-            inputFileTree.matching(patternSet).visit(toSignBuilder);
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        } catch (IOException e) {
+            return null;
         }
+        return entries.isEmpty() ? null : entries;
     }
     
-    private void writeOutputJar(File signedJar, File inputJar, File outputJar) throws IOException {
-        final FileTree inputFileTree = getArchiveOperations().zipTree(inputJar);
-        final FileTree signedFileTree = getArchiveOperations().zipTree(signedJar);
-        try (OutputStream outputStream = new FileOutputStream(outputJar); ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+    private static void writeSignatureCache(File signatureCache, String cacheKey, Map<String, byte[]> signatureEntries) throws IOException {
+        final Path parent = Files.createDirectories(signatureCache.toPath().toAbsolutePath().getParent());
+        final Path temporary = FileUtils.temporaryPath(parent, "signature-cache");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(temporary))) {
+            zip.putNextEntry(FileUtils.getStableEntry(SIGNATURE_CACHE_KEY_ENTRY));
+            zip.write(cacheKey.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
             
-            ZipBuildingFileTreeVisitor builder = new ZipBuildingFileTreeVisitor(zipOutputStream);
-            signedFileTree.visit(builder);
-            inputFileTree.minus(inputFileTree.matching(patternSet)).getAsFileTree().visit(builder);
+            for (Map.Entry<String, byte[]> entry : signatureEntries.entrySet()) {
+                zip.putNextEntry(FileUtils.getStableEntry(entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
         }
+        FileUtils.atomicMove(temporary, signatureCache.toPath());
     }
     
     @InputFile
@@ -118,6 +160,12 @@ public abstract class PotentiallySignJar extends DefaultTask implements PatternF
     @Optional
     public abstract Property<String> getKeyStore();
     
+    /**
+     * The signature entries of the last signing run, reused when the input jar and the key did not change.
+     */
+    @LocalState
+    public abstract RegularFileProperty getSignatureCache();
+    
     @Override
     public PatternFilterable exclude(String... arg0) {
         return patternSet.exclude(arg0);
@@ -1,34 +1,34 @@
 package net.neoforged.gradle.common.tasks;
 
-import com.google.common.io.Files;
+import net.neoforged.gradle.common.services.metadata.MinecraftArtifactCacheService;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
+import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
-import java.io.IOException;
 
 public abstract class RawAndSourceCombiner extends NeoGradleBase implements WithOutput {
 
+    public RawAndSourceCombiner() {
+        getImmutableCacheDirectory().fileValue(new File(getProject().getGradle().getGradleUserHomeDir(), MinecraftArtifactCacheService.DIRECTORY_NAME));
+    }
+
     @TaskAction
-    public void doCombine() {
-        final File rawJarOutput = ensureFileWorkspaceReady(getOutput());
-        final File sourceJarOutput = ensureFileWorkspaceReady(getSourceJarOutput());
+    public void doCombine() throws Exception {
+        //The outputs are not cleared here, the materializer reuses them when they already hold the same content.
+        final File rawJarOutput = getOutput().getAsFile().get();
+        final File sourceJarOutput = getSourceJarOutput().getAsFile().get();
 
         final File rawJarInput = getInput().getAsFile().get();
         final File sourceJarInput = getSourceJarInput().getAsFile().get();
 
-        copy(rawJarInput, rawJarOutput);
-        copy(sourceJarInput, sourceJarOutput);
-    }
-
-    private static void copy(final File input, final File output) {
-        try {
-            Files.copy(input, output);
-        } catch (IOException e) {
-            throw new RuntimeException(String.format("Failed to copy: %s to output: %s", input.getAbsolutePath(), output.getAbsolutePath()), e);
-        }
+        //Inputs which are entries of the immutable artifact cache are linked, all others are copied.
+        final File cacheDirectory = getImmutableCacheDirectory().getAsFile().get();
+        FileMaterializationUtils.materialize(rawJarInput, rawJarOutput, cacheDirectory);
+        FileMaterializationUtils.materialize(sourceJarInput, sourceJarOutput, cacheDirectory);
     }
 
     @InputFile
@@ -41,4 +41,7 @@ public abstract class RawAndSourceCombiner extends NeoGradleBase implements With
 
     @OutputFile
     public abstract RegularFileProperty getSourceJarOutput();
+
+    @Internal
+    public abstract DirectoryProperty getImmutableCacheDirectory();
 }
@@ -1,63 +1,100 @@
 package net.neoforged.gradle.common.tasks;
 
+import net.neoforged.gradle.common.util.FileCacheUtils;
 import net.neoforged.gradle.common.util.FileDownloadingUtils;
 import net.neoforged.gradle.common.util.VersionJson;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
-import net.neoforged.gradle.util.CopyingFileTreeVisitor;
-import org.apache.commons.io.FileUtils;
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.*;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-
-@CacheableTask
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Installs RenderDoc into a versioned directory, by default in the RenderDoc cache of the gradle user home.
+ * <p>
+ * The installation directory is only created once the archive has been fully extracted, so an existing library file
+ * is always part of a finished installation and is reused as is, by this and any other project that uses the same cache.
+ * The downloaded archive is kept next to the installation together with its checksum, which is compared before it is
+ * extracted again. This only detects an archive which was corrupted in the cache, the download itself is not authenticated
+ * unless an expected checksum is configured on the task.
+ * <p>
+ * Downloading and installing holds a lock on the version directory, other builds and other projects of this build
+ * installing the same version wait for it and then find the finished installation.
+ */
+@UntrackedTask(because = "RenderDoc is installed into a cache shared by all projects, the task checks the installation itself.")
 public abstract class RenderDocDownloaderTask extends NeoGradleBase {
 
+    private static final String LOCK_FILE_NAME = "install.lock";
+
+    /**
+     * File locks are held per process, this guards against projects of the same build installing concurrently.
+     */
+    private static final Object INSTALL_LOCK = new Object();
+
     public RenderDocDownloaderTask() {
         getIsOffline().set(getProject().getGradle().getStartParameter().isOffline());
         getRenderDocVersion().convention("1.33"); // Current default.
-        getRenderDocOutputDirectory().convention(getProject().getLayout().getBuildDirectory().dir("renderdoc/download"));
-        getRenderDocInstallationDirectory().convention(getProject().getLayout().getBuildDirectory().dir("renderdoc/installation"));
+        getRenderDocOutputDirectory().convention(
+                FileCacheUtils.getRenderDocCacheDirectory(getProject()).zip(getRenderDocVersion(), (dir, version) -> dir.dir(version).dir("download"))
+        );
+        getRenderDocInstallationDirectory().convention(
+                FileCacheUtils.getRenderDocCacheDirectory(getProject()).zip(getRenderDocVersion(), (dir, version) -> dir.dir(version).dir("installation"))
+        );
         getRenderDocLibraryFile().fileProvider(
                 getRenderDocInstallationDirectory().map(dir -> getOSSpecificRenderDocLibraryFile(dir.getAsFile()))
         );
-
-        getOutputs().upToDateWhen(task -> false);
     }
 
     @TaskAction
     public void doDownload() throws IOException {
         final File outputRoot = getRenderDocInstallationDirectory().get().getAsFile();
-        if (outputRoot.exists() && outputRoot.isDirectory()) {
-            final File renderDocLibraryFile = getOSSpecificRenderDocLibraryFile(outputRoot);
-            if (renderDocLibraryFile.exists() && renderDocLibraryFile.isFile()) {
-                //setDidWork(false);
-                //return;
-            }
+        final File renderDocLibraryFile = getOSSpecificRenderDocLibraryFile(outputRoot);
+        if (renderDocLibraryFile.isFile()) {
+            setDidWork(false);
+            return;
         }
 
-        final String url = getOSSpecificRenderDocUrl();
-
-        final File output = getRenderDocInstallationDirectory().get().getAsFile();
-        if (output.exists()) {
-            if (output.isFile()) {
-                output.delete();
-                output.mkdirs();
-            } else {
-                FileUtils.cleanDirectory(output);
+        synchronized (INSTALL_LOCK) {
+            final Path versionDirectory = Files.createDirectories(outputRoot.toPath().toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(versionDirectory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                if (renderDocLibraryFile.isFile()) {
+                    //Installed by someone else while we were waiting for the lock.
+                    setDidWork(false);
+                    return;
+                }
+
+                final FileDownloadingUtils.DownloadInfo downloadInfo = new FileDownloadingUtils.DownloadInfo(getOSSpecificRenderDocUrl(), null, null, null, null);
+                final File compressedDownloadTarget = new File(getRenderDocOutputDirectory().get().getAsFile(), getOSSpecificFileName());
+                final boolean downloaded = FileDownloadingUtils.downloadTo(getIsOffline().getOrElse(false), downloadInfo, compressedDownloadTarget);
+
+                verifyChecksum(compressedDownloadTarget, downloaded);
+                install(compressedDownloadTarget, outputRoot.toPath());
             }
-        } else {
-            output.mkdirs();
         }
-
-        final FileDownloadingUtils.DownloadInfo downloadInfo = new FileDownloadingUtils.DownloadInfo(url, null, null, null, null);
-        final File compressedDownloadTarget = new File(getRenderDocOutputDirectory().get().getAsFile(), getOSSpecificFileName());
-        FileDownloadingUtils.downloadTo(getIsOffline().getOrElse(false), downloadInfo, compressedDownloadTarget);
-
-        extractOSSpecific(compressedDownloadTarget);
     }
 
     @Input
@@ -67,7 +104,17 @@ public abstract class RenderDocDownloaderTask extends NeoGradleBase {
     @Input
     public abstract Property<String> getRenderDocVersion();
 
-    @OutputDirectory
+    /**
+     * The expected SHA-256 checksum of the RenderDoc archive, if set the archive is rejected when it does not match.
+     * There is no default, the checksums of the archives are not published for every version and platform.
+     *
+     * @return The expected checksum of the archive.
+     */
+    @Input
+    @Optional
+    public abstract Property<String> getRenderDocChecksum();
+
+    @Internal
     public abstract DirectoryProperty getRenderDocOutputDirectory();
 
     @Internal
@@ -76,6 +123,60 @@ public abstract class RenderDocDownloaderTask extends NeoGradleBase {
     @Internal
     public abstract RegularFileProperty getRenderDocLibraryFile();
 
+    /**
+     * Verifies the checksum of the archive.
+     * <p>
+     * The checksum of a freshly downloaded archive is recorded next to it, an archive which was already present has to
+     * match the recorded checksum, so that a corrupted archive in the cache is never extracted.
+     * Without an expected checksum the first download is trusted as is.
+     */
+    private void verifyChecksum(final File archive, final boolean downloaded) throws IOException {
+        final String checksum = HashFunction.SHA256.hash(archive);
+        if (getRenderDocChecksum().isPresent() && !getRenderDocChecksum().get().equalsIgnoreCase(checksum)) {
+            Files.deleteIfExists(archive.toPath());
+            throw new IllegalStateException("The RenderDoc archive: %s has the checksum: %s, but: %s was expected".formatted(archive, checksum, getRenderDocChecksum().get()));
+        }
+
+        final Path checksumFile = archive.toPath().resolveSibling(archive.getName() + ".sha256");
+        if (!downloaded && Files.isRegularFile(checksumFile)) {
+            final String recorded = new String(Files.readAllBytes(checksumFile), StandardCharsets.UTF_8).trim();
+            if (!recorded.equalsIgnoreCase(checksum)) {
+                Files.deleteIfExists(archive.toPath());
+                Files.deleteIfExists(checksumFile);
+                throw new IllegalStateException("The cached RenderDoc archive: %s is corrupted, it has been removed and will be downloaded again on the next run".formatted(archive));
+            }
+            return;
+        }
+
+        FileUtils.writeIfChanged(checksumFile, checksum.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Installs the archive, must be called while holding the lock on the version directory.
+     */
+    private void install(final File archive, final Path output) throws IOException {
+        if (Files.exists(output)) {
+            //A left over from an interrupted or older installation, which does not contain the library.
+            //No one else can be installing right now, so it is safe to remove.
+            FileUtils.delete(output);
+        }
+
+        final Path parent = Files.createDirectories(output.toAbsolutePath().getParent());
+        final Path temporary = Files.createTempDirectory(parent, "." + output.getFileName());
+        try {
+            extractOSSpecific(archive, temporary);
+            try {
+                Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException ignored) {
+                //Another build installed the same version concurrently, its result is identical.
+            }
+        } finally {
+            if (Files.exists(temporary)) {
+                FileUtils.delete(temporary);
+            }
+        }
+    }
+
     private File getOSSpecificRenderDocLibraryFile(final File root) {
         if (VersionJson.OS.getCurrent() == VersionJson.OS.WINDOWS) {
             return new File(root, "RenderDoc_%s_64/renderdoc.dll".formatted(getRenderDocVersion().get()));
@@ -102,11 +203,11 @@ public abstract class RenderDocDownloaderTask extends NeoGradleBase {
 
     private String getOSSpecificRenderDocUrl() {
         if (VersionJson.OS.getCurrent() == VersionJson.OS.WINDOWS) {
-            return "https://renderdoc.org/stable/1.33/RenderDoc_%s_64.zip".formatted(getRenderDocVersion().get());
+            return "https://renderdoc.org/stable/%1$s/RenderDoc_%1$s_64.zip".formatted(getRenderDocVersion().get());
         }
 
         if (VersionJson.OS.getCurrent() == VersionJson.OS.LINUX) {
-            return "https://renderdoc.org/stable/1.33/renderdoc_%s.tar.gz".formatted(getRenderDocVersion().get());
+            return "https://renderdoc.org/stable/%1$s/renderdoc_%1$s.tar.gz".formatted(getRenderDocVersion().get());
         }
 
         throw new IllegalStateException("Unsupported OS: " + VersionJson.OS.getCurrent().name());
@@ -124,32 +225,67 @@ public abstract class RenderDocDownloaderTask extends NeoGradleBase {
         throw new IllegalStateException("Unsupported OS: " + VersionJson.OS.getCurrent().name());
     }
 
-    private void extractOSSpecific(final File input) {
+    private void extractOSSpecific(final File input, final Path output) throws IOException {
         if (VersionJson.OS.getCurrent() == VersionJson.OS.WINDOWS) {
-            extractWindows(input);
+            extractWindows(input, output);
         } else if (VersionJson.OS.getCurrent() == VersionJson.OS.LINUX) {
-            extractLinux(input);
+            extractLinux(input, output);
         } else {
             throw new IllegalStateException("Unsupported OS: " + VersionJson.OS.getCurrent().name());
         }
     }
 
-    private void extractWindows(final File input) {
-        final File output = getRenderDocInstallationDirectory().get().getAsFile();
-
-        final CopyingFileTreeVisitor visitor = new CopyingFileTreeVisitor(output.toPath());
-        getArchiveOperations().zipTree(input).visit(visitor);
+    private void extractWindows(final File input, final Path output) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(input.toPath()));
+             ZipArchiveInputStream archive = new ZipArchiveInputStream(stream)) {
+            extract(archive, output);
+        }
     }
 
-    private void extractLinux(final File input) {
-        final File output = getRenderDocInstallationDirectory().get().getAsFile();
-
-        final CopyingFileTreeVisitor visitor = new CopyingFileTreeVisitor(output.toPath());
-        getArchiveOperations().tarTree(input).visit(visitor);
+    private void extractLinux(final File input, final Path output) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(input.toPath()));
+             TarArchiveInputStream archive = new TarArchiveInputStream(new GzipCompressorInputStream(stream))) {
+            extract(archive, output);
+        }
 
-        final File executable = getOSSpecificRenderDocExecutableFile(output);
+        final File executable = getOSSpecificRenderDocExecutableFile(output.toFile());
         executable.setExecutable(true);
     }
 
+    private static <E extends ArchiveEntry> void extract(final ArchiveInputStream<E> archive, final Path output) throws IOException {
+        final Path root = output.toAbsolutePath().normalize();
+
+        E entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (!archive.canReadEntryData(entry)) {
+                continue;
+            }
+
+            final Path target = root.resolve(entry.getName()).normalize();
+            if (!target.startsWith(root)) {
+                throw new IOException("The RenderDoc archive entry: %s is outside of the installation directory".formatted(entry.getName()));
+            }
+
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+                continue;
+            }
+
+            Files.createDirectories(target.getParent());
+            if (entry instanceof TarArchiveEntry tarEntry && tarEntry.isSymbolicLink()) {
+                final Path link = Paths.get(tarEntry.getLinkName());
+                if (link.isAbsolute() || !target.getParent().resolve(link).normalize().startsWith(root)) {
+                    throw new IOException("The RenderDoc archive entry: %s links to: %s, which is outside of the installation directory".formatted(entry.getName(), tarEntry.getLinkName()));
+                }
 
+                Files.createSymbolicLink(target, link);
+                continue;
+            }
+
+            Files.copy(archive, target, StandardCopyOption.REPLACE_EXISTING);
+            if (entry instanceof TarArchiveEntry tarEntry && (tarEntry.getMode() & 0100) != 0) {
+                target.toFile().setExecutable(true);
+            }
+        }
+    }
 }
@@ -1,9 +1,9 @@
 package net.neoforged.gradle.common.tasks;
 
 import net.neoforged.gradle.common.util.BundledServerUtils;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import net.neoforged.gradle.dsl.common.tasks.NeoGradleBase;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
-import org.apache.commons.io.FileUtils;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.*;
 
@@ -18,7 +18,7 @@ public abstract class UnpackBundledServer extends NeoGradleBase implements WithO
         final File output = getOutput().get().getAsFile();
         
         if (!BundledServerUtils.isBundledServer(serverJar)) {
-            FileUtils.copyFile(serverJar, output);
+            FileMaterializationUtils.materialize(serverJar, output);
         } else {
             BundledServerUtils.extractBundledVersion(serverJar, output);
         }
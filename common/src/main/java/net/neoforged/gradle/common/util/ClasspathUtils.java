@@ -1,7 +1,15 @@
 package net.neoforged.gradle.common.util;
 
+import net.neoforged.gradle.util.FileHashCache;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.zip.ZipFile;
 
 /**
@@ -9,6 +17,8 @@ import java.util.zip.ZipFile;
  */
 public class ClasspathUtils {
 
+    private static final String MINECRAFT_ENTRY_KIND = "minecraft-entry";
+
     private ClasspathUtils() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated.");
     }
@@ -18,10 +28,46 @@ public class ClasspathUtils {
     }
 
     public static boolean isMinecraftClasspathEntry(File entry) {
+        return isMinecraftClasspathEntry(entry, null);
+    }
+
+    public static boolean isMinecraftClasspathEntry(File entry, @Nullable FileHashCache cache) {
         if (!isClasspathEntry(entry)) {
             return false;
         }
 
+        //Opening the jar is comparatively expensive, and runs query the same entries over and over again.
+        //So the classification is cached next to the file hashes, keyed by the stat information of the entry.
+        if (cache != null) {
+            try {
+                return Boolean.parseBoolean(cache.get(MINECRAFT_ENTRY_KIND, entry.toPath(), file -> Boolean.toString(containsMinecraft(file.toFile()))));
+            } catch (IOException ignored) {
+                return false;
+            }
+        }
+
+        return containsMinecraft(entry);
+    }
+
+    /**
+     * Removes the given entries from the given classpath, preserving the order of the remaining entries.
+     *
+     * @param classpath The classpath to remove entries from.
+     * @param toRemove The entries to remove.
+     * @return The remaining entries.
+     */
+    public static List<File> subtract(Collection<File> classpath, Collection<File> toRemove) {
+        final Set<File> removed = toRemove instanceof Set<File> set ? set : new HashSet<>(toRemove);
+        final List<File> result = new ArrayList<>(classpath.size());
+        for (File file : classpath) {
+            if (!removed.contains(file)) {
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsMinecraft(File entry) {
         //Check if the file contains the class:
         //net.minecraft.client.Minecraft
         //This is a class that is always present in the Minecraft jar.
@@ -31,6 +77,5 @@ public class ClasspathUtils {
         } catch (IOException ignored) {
             return false;
         }
-
     }
 }
@@ -0,0 +1,605 @@
+package net.neoforged.gradle.common.util;
+
+import io.codechicken.diffpatch.cli.CliOperation;
+import io.codechicken.diffpatch.cli.DiffOperation;
+import io.codechicken.diffpatch.cli.PatchOperation;
+import io.codechicken.diffpatch.util.Input.MultiInput;
+import io.codechicken.diffpatch.util.Output.MultiOutput;
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Utility for running DiffPatch operations sharded over multiple threads.
+ * <p>
+ * DiffPatch processes all files of an operation one after another, even though every file is independent.
+ * The methods in this class split the files which actually need processing into shards, stage each shard in its
+ * own workspace, run the operation for every shard on the given (shared) executor, and merge the results into a single archive.
+ * The shard workspaces are created in the temporary directory of the calling task, and deleted once the operation completes.
+ * <p>
+ * Merged archives are always written with sorted entries and stable timestamps, so the result does not depend on the
+ * parallelism, or on the order in which the shards complete.
+ * Outputs which are not zip archives can not be merged, in that case the operation is run as a single DiffPatch call on the full inputs.
+ */
+public final class DiffPatchUtils {
+
+    private static final String PATCH_EXTENSION = ".patch";
+    private static final String REJECT_EXTENSION = ".rej";
+    private static final String REJECTS_INDEX = "rejects-index.txt";
+
+    private DiffPatchUtils() {
+        throw new IllegalStateException("Can not instantiate an instance of: DiffPatchUtils. This is a utility class");
+    }
+
+    /**
+     * Applies the patches in the given directory to the given base.
+     *
+     * @param base The base archive or directory.
+     * @param patches The directory containing the patches.
+     * @param patchesPrefix The prefix of the patches inside the patch directory.
+     * @param output The output archive.
+     * @param rejects The rejects output.
+     * @param rejectsAsArchive {@code true} if the rejects should be written as an archive, {@code false} for a directory.
+     * @param temporaryDirectory The temporary directory of the task, the shards are staged in it.
+     * @param parallelism The maximal amount of shards to process concurrently.
+     * @param executor The executor the shards are run on.
+     * @param options Configures the shared options (mode, prefixes, logging, ...) of each operation.
+     * @return The exit code of the operation, the highest exit code of all shards.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static int patch(final Path base, final Path patches, final String patchesPrefix, final Path output, final Path rejects, final boolean rejectsAsArchive, final Path temporaryDirectory, final int parallelism, final ExecutorService executor, final UnaryOperator<PatchOperation.Builder> options) throws IOException {
+        final Map<String, Path> patchFiles = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(patches)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                final String relativePath = relativize(patches, file);
+                if (relativePath.startsWith(patchesPrefix) && relativePath.endsWith(PATCH_EXTENSION)) {
+                    patchFiles.put(relativePath, file);
+                }
+            });
+        }
+
+        if (!isZip(output)) {
+            return operate(options.apply(PatchOperation.builder())
+                    .baseInput(Files.isDirectory(base) ? MultiInput.folder(base) : MultiInput.detectedArchive(base))
+                    .patchesInput(MultiInput.folder(patches))
+                    .patchedOutput(MultiOutput.detectedArchive(output))
+                    .rejectsOutput(rejectsAsArchive ? MultiOutput.detectedArchive(rejects) : MultiOutput.folder(rejects))
+                    .build());
+        }
+
+        final Path workspace = createWorkspace(temporaryDirectory, "patch-shards");
+        try (EntryIndex baseEntries = EntryIndex.of(base)) {
+            final List<List<String>> shards = shard(patchFiles, parallelism);
+
+            //Entry names of all patched files, these are not passed through from the base.
+            final Map<String, String> patchedEntries = new TreeMap<>();
+            patchFiles.keySet().forEach(relativePath -> patchedEntries.put(toEntryName(relativePath, patchesPrefix), relativePath));
+
+            final int exit = runShards(shards, executor, (index, shard) -> {
+                final Path shardDirectory = workspace.resolve(Integer.toString(index));
+                final Path shardBase = Files.createDirectories(shardDirectory.resolve("base"));
+                final Path shardPatches = Files.createDirectories(shardDirectory.resolve("patches"));
+
+                for (String relativePath : shard) {
+                    baseEntries.extract(toEntryName(relativePath, patchesPrefix), shardBase);
+                    copy(patchFiles.get(relativePath), shardPatches.resolve(relativePath));
+                }
+
+                return operate(options.apply(PatchOperation.builder())
+                        .baseInput(MultiInput.folder(shardBase))
+                        .patchesInput(MultiInput.folder(shardPatches))
+                        .patchedOutput(MultiOutput.folder(shardDirectory.resolve("patched")))
+                        .rejectsOutput(MultiOutput.folder(shardDirectory.resolve("rejects")))
+                        .build());
+            });
+
+            final Map<String, EntrySource> result = new TreeMap<>();
+            baseEntries.getNames().stream()
+                    .filter(name -> !patchedEntries.containsKey(name))
+                    .forEach(name -> result.put(name, () -> baseEntries.open(name)));
+            final Map<String, EntrySource> rejected = new TreeMap<>();
+            for (int i = 0; i < shards.size(); i++) {
+                collect(workspace.resolve(Integer.toString(i)).resolve("patched"), result);
+                collect(workspace.resolve(Integer.toString(i)).resolve("rejects"), rejected);
+            }
+
+            writeArchive(output, result);
+            writeRejects(rejects, rejectsAsArchive, rejected, patchFiles.keySet(), temporaryDirectory);
+            return exit;
+        } finally {
+            FileUtils.delete(workspace);
+        }
+    }
+
+    /**
+     * Creates the patches between the given base and modified inputs.
+     *
+     * @param base The base archive.
+     * @param modified The modified archive.
+     * @param output The output archive containing the patches.
+     * @param temporaryDirectory The temporary directory of the task, the shards are staged in it.
+     * @param parallelism The maximal amount of shards to process concurrently.
+     * @param executor The executor the shards are run on.
+     * @param options Configures the shared options (prefixes, line endings, logging, ...) of each operation.
+     * @return The exit code of the operation, the highest exit code of all shards.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static int diff(final Path base, final Path modified, final Path output, final Path temporaryDirectory, final int parallelism, final ExecutorService executor, final UnaryOperator<DiffOperation.Builder> options) throws IOException {
+        return diff(base, modified, output, null, "", temporaryDirectory, parallelism, executor, options);
+    }
+
+    /**
+     * Creates the patches between the given base and modified inputs, only re-diffing the entries which changed since the last run.
+     * <p>
+     * The given index file records the content hashes of every differing entry and the patch it produced.
+     * Entries whose hashes did not change have their previous patch carried forward from the existing output,
+     * entries which no longer differ (or no longer exist) drop their patch.
+     *
+     * @param base The base archive.
+     * @param modified The modified archive.
+     * @param output The output archive containing the patches.
+     * @param index The file to store the index in, or {@code null} to always diff all entries.
+     * @param fingerprint A fingerprint of all options which influence the produced patches, a change invalidates the index.
+     * @param temporaryDirectory The temporary directory of the task, the shards are staged in it.
+     * @param parallelism The maximal amount of shards to process concurrently.
+     * @param executor The executor the shards are run on.
+     * @param options Configures the shared options (prefixes, line endings, logging, ...) of each operation.
+     * @return The exit code of the operation, the highest exit code of all shards.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static int diff(final Path base, final Path modified, final Path output, @Nullable final Path index, final String fingerprint, final Path temporaryDirectory, final int parallelism, final ExecutorService executor, final UnaryOperator<DiffOperation.Builder> options) throws IOException {
+        if (!isZip(output)) {
+            if (index != null) {
+                Files.deleteIfExists(index);
+            }
+
+            return operate(options.apply(DiffOperation.builder())
+                    .baseInput(MultiInput.detectedArchive(base))
+                    .changedInput(MultiInput.detectedArchive(modified))
+                    .patchesOutput(MultiOutput.detectedArchive(output))
+                    .build());
+        }
+
+        final EntryHashIndex previous = index == null ? null : EntryHashIndex.read(index, fingerprint, output);
+        if (index != null) {
+            //Until the new output is written, the old index no longer describes it.
+            Files.deleteIfExists(index);
+        }
+
+        final Path workspace = createWorkspace(temporaryDirectory, "diff-shards");
+        try (EntryIndex baseEntries = EntryIndex.of(base);
+             EntryIndex modifiedEntries = EntryIndex.of(modified);
+             ZipFile previousOutput = previous == null ? null : new ZipFile(output.toFile())) {
+            final EntryHashIndex results = new EntryHashIndex(fingerprint);
+            final Map<String, EntrySource> result = new TreeMap<>();
+
+            //Files which are byte for byte identical never produce a patch, so they do not need to be diffed at all.
+            //Files whose content did not change since the last run carry their previous patch forward.
+            final Map<String, Long> changed = new TreeMap<>();
+            final Map<String, EntryHashIndex.Entry> pending = new TreeMap<>();
+            final Set<String> names = new TreeSet<>(baseEntries.getNames());
+            names.addAll(modifiedEntries.getNames());
+            for (String name : names) {
+                final String baseHash = baseEntries.contains(name) ? baseEntries.hash(name) : EntryHashIndex.MISSING;
+                final String modifiedHash = modifiedEntries.contains(name) ? modifiedEntries.hash(name) : EntryHashIndex.MISSING;
+                if (baseHash.equals(modifiedHash)) {
+                    continue;
+                }
+
+                final EntryHashIndex.Entry known = previous == null ? null : previous.get(name);
+                if (known != null && known.isResultOf(baseHash, modifiedHash) && (known.getResult().equals(EntryHashIndex.MISSING) || previousOutput.getEntry(known.getResult()) != null)) {
+                    results.put(name, known);
+                    if (!known.getResult().equals(EntryHashIndex.MISSING)) {
+                        final ZipEntry patch = previousOutput.getEntry(known.getResult());
+                        result.put(known.getResult(), () -> previousOutput.getInputStream(patch));
+                    }
+                    continue;
+                }
+
+                changed.put(name, Math.max(baseEntries.size(name), modifiedEntries.size(name)));
+                pending.put(name, new EntryHashIndex.Entry(baseHash, modifiedHash, EntryHashIndex.MISSING));
+            }
+
+            final List<List<String>> shards = shard(changed, parallelism, Long::longValue);
+            final int exit = runShards(shards, executor, (shardIndex, shard) -> {
+                final Path shardDirectory = workspace.resolve(Integer.toString(shardIndex));
+                final Path shardBase = Files.createDirectories(shardDirectory.resolve("base"));
+                final Path shardModified = Files.createDirectories(shardDirectory.resolve("modified"));
+
+                for (String name : shard) {
+                    baseEntries.extract(name, shardBase);
+                    modifiedEntries.extract(name, shardModified);
+                }
+
+                return operate(options.apply(DiffOperation.builder())
+                        .baseInput(MultiInput.folder(shardBase))
+                        .changedInput(MultiInput.folder(shardModified))
+                        .patchesOutput(MultiOutput.folder(shardDirectory.resolve("patches")))
+                        .build());
+            });
+
+            final Map<String, EntrySource> created = new TreeMap<>();
+            for (int i = 0; i < shards.size(); i++) {
+                collect(workspace.resolve(Integer.toString(i)).resolve("patches"), created);
+            }
+
+            //Map the created patches back to their entries, anything we can not map makes the index unusable.
+            boolean indexable = true;
+            for (Map.Entry<String, EntryHashIndex.Entry> entry : pending.entrySet()) {
+                final String patch = entry.getKey() + PATCH_EXTENSION;
+                final boolean exists = created.containsKey(patch);
+                results.put(entry.getKey(), new EntryHashIndex.Entry(entry.getValue().getBaseHash(), entry.getValue().getChangeHash(), exists ? patch : EntryHashIndex.MISSING));
+            }
+            for (String patch : created.keySet()) {
+                if (!patch.endsWith(PATCH_EXTENSION) || !pending.containsKey(patch.substring(0, patch.length() - PATCH_EXTENSION.length()))) {
+                    indexable = false;
+                }
+            }
+            result.putAll(created);
+
+            //The previous output may still be read from, so write next to it and move it into place afterward.
+            final Path temporary = FileUtils.temporaryPath(output.toAbsolutePath().getParent(), "patches");
+            writeArchive(temporary, result);
+            if (previousOutput != null) {
+                previousOutput.close();
+            }
+            FileUtils.atomicMove(temporary, output);
+
+            if (index != null && indexable) {
+                results.setOutputHash(HashFunction.SHA1.hash(output));
+                results.write(index);
+            }
+            return exit;
+        } finally {
+            FileUtils.delete(workspace);
+        }
+    }
+
+    /**
+     * Bakes the patches in the given archive, removing all information which is not required to apply them.
+     *
+     * @param input The archive containing the patches.
+     * @param output The output archive containing the baked patches.
+     * @param lineEnding The line ending to use.
+     * @param temporaryDirectory The temporary directory of the task, the shards are staged in it.
+     * @param parallelism The maximal amount of shards to process concurrently.
+     * @param executor The executor the shards are run on.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void bake(final Path input, final Path output, final String lineEnding, final Path temporaryDirectory, final int parallelism, final ExecutorService executor) throws IOException {
+        if (!isZip(output)) {
+            PatchOperation.bakePatches(MultiInput.detectedArchive(input), MultiOutput.detectedArchive(output), lineEnding);
+            return;
+        }
+
+        final Path workspace = createWorkspace(temporaryDirectory, "bake-shards");
+        try (EntryIndex entries = EntryIndex.of(input)) {
+            final Map<String, Long> sizes = new TreeMap<>();
+            entries.getNames().forEach(name -> sizes.put(name, entries.size(name)));
+
+            final List<List<String>> shards = shard(sizes, parallelism, Long::longValue);
+            runShards(shards, executor, (index, shard) -> {
+                final Path shardDirectory = workspace.resolve(Integer.toString(index));
+                final Path shardInput = Files.createDirectories(shardDirectory.resolve("input"));
+                for (String name : shard) {
+                    entries.extract(name, shardInput);
+                }
+
+                PatchOperation.bakePatches(MultiInput.folder(shardInput), MultiOutput.folder(shardDirectory.resolve("baked")), lineEnding);
+                return 0;
+            });
+
+            final Map<String, EntrySource> result = new TreeMap<>();
+            for (int i = 0; i < shards.size(); i++) {
+                collect(workspace.resolve(Integer.toString(i)).resolve("baked"), result);
+            }
+
+            writeArchive(output, result);
+        } finally {
+            FileUtils.delete(workspace);
+        }
+    }
+
+    /**
+     * Writes the given entries, in order of their names and with stable timestamps, to the given archive.
+     *
+     * @param output The archive to write.
+     * @param entries The entries to write, keyed by their name.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeArchive(final Path output, final Map<String, EntrySource> entries) throws IOException {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (OutputStream stream = Files.newOutputStream(output);
+             ZipOutputStream zip = new ZipOutputStream(stream)) {
+            for (Map.Entry<String, EntrySource> entry : new TreeMap<>(entries).entrySet()) {
+                zip.putNextEntry(FileUtils.getStableEntry(entry.getKey()));
+                try (InputStream data = entry.getValue().open()) {
+                    data.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * A lazily opened source of the content of an archive entry.
+     */
+    @FunctionalInterface
+    public interface EntrySource {
+        InputStream open() throws IOException;
+    }
+
+    private static int operate(final CliOperation<?> operation) throws IOException {
+        return operation.operate().exit;
+    }
+
+    private static Path createWorkspace(final Path temporaryDirectory, final String key) throws IOException {
+        //Left overs of an interrupted run are not reused.
+        final Path workspace = temporaryDirectory.resolve(key);
+        FileUtils.delete(workspace);
+        return Files.createDirectories(workspace);
+    }
+
+    private static int runShards(final List<List<String>> shards, final ExecutorService executor, final ShardOperation operation) throws IOException {
+        if (shards.isEmpty()) {
+            return 0;
+        }
+
+        final List<Future<Integer>> results = new ArrayList<>(shards.size());
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                final int index = i;
+                results.add(executor.submit(() -> operation.run(index, shards.get(index))));
+            }
+
+            int exit = 0;
+            for (Future<Integer> result : results) {
+                exit = mergeExitCodes(exit, result.get());
+            }
+            return exit;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for DiffPatch shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException("A DiffPatch shard failed", e.getCause());
+        } finally {
+            //The executor is shared, so the remaining shards of a failed operation are cancelled instead of shutting it down.
+            results.forEach(result -> result.cancel(true));
+        }
+    }
+
+    /**
+     * Merges exit codes, errors (anything but 0 and 1) win over failures (1), which win over successes (0).
+     */
+    private static int mergeExitCodes(final int left, final int right) {
+        if (left != 0 && left != 1) {
+            return left;
+        }
+        if (right != 0 && right != 1) {
+            return right;
+        }
+        return Math.max(left, right);
+    }
+
+    private static List<List<String>> shard(final Map<String, Path> files, final int parallelism) {
+        final Map<String, Long> sizes = new TreeMap<>();
+        files.forEach((name, file) -> sizes.put(name, file.toFile().length()));
+        return shard(sizes, parallelism, Long::longValue);
+    }
+
+    /**
+     * Splits the given names into at most {@code parallelism} shards of roughly the same total weight.
+     * Largest first into the currently lightest shard, which is deterministic for the given (sorted) input.
+     */
+    private static <T> List<List<String>> shard(final Map<String, T> weighted, final int parallelism, final ToLongFunction<T> weigher) {
+        final int count = Math.max(1, Math.min(parallelism, weighted.size()));
+        final List<List<String>> shards = new ArrayList<>(count);
+        final long[] weights = new long[count];
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+
+        weighted.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, T> entry) -> weigher.applyAsLong(entry.getValue())).reversed().thenComparing(Map.Entry::getKey))
+                .forEach(entry -> {
+                    int lightest = 0;
+                    for (int i = 1; i < count; i++) {
+                        if (weights[i] < weights[lightest]) {
+                            lightest = i;
+                        }
+                    }
+                    shards.get(lightest).add(entry.getKey());
+                    weights[lightest] += Math.max(1, weigher.applyAsLong(entry.getValue()));
+                });
+
+        shards.removeIf(List::isEmpty);
+        return shards;
+    }
+
+    private static void collect(final Path directory, final Map<String, EntrySource> into) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> into.put(relativize(directory, file), () -> Files.newInputStream(file)));
+        }
+    }
+
+    private static void writeRejects(final Path rejects, final boolean asArchive, final Map<String, EntrySource> rejected, final Set<String> patchPaths, final Path temporaryDirectory) throws IOException {
+        if (asArchive) {
+            Files.deleteIfExists(rejects);
+            if (!rejected.isEmpty()) {
+                writeArchive(rejects, rejected);
+            }
+            return;
+        }
+
+        //Rejects of patches which apply now must not survive from an earlier run.
+        //The directory might be shared with other files, so only the rejects written by the last run, and those of the current patches, are removed.
+        final Path rejectsIndex = temporaryDirectory.resolve(REJECTS_INDEX);
+        final Set<String> stale = new TreeSet<>();
+        if (Files.isRegularFile(rejectsIndex)) {
+            stale.addAll(Files.readAllLines(rejectsIndex, StandardCharsets.UTF_8));
+        }
+        for (String patchPath : patchPaths) {
+            stale.add(patchPath);
+            stale.add(patchPath + REJECT_EXTENSION);
+        }
+        for (String path : stale) {
+            Files.deleteIfExists(rejects.resolve(path));
+        }
+
+        for (Map.Entry<String, EntrySource> entry : rejected.entrySet()) {
+            try (InputStream stream = entry.getValue().open()) {
+                final Path target = rejects.resolve(entry.getKey());
+                Files.createDirectories(target.getParent());
+                Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        Files.createDirectories(temporaryDirectory);
+        Files.write(rejectsIndex, rejected.keySet(), StandardCharsets.UTF_8);
+    }
+
+    private static void copy(final Path source, final Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.copy(source, target);
+    }
+
+    private static String toEntryName(final String relativePatchPath, final String patchesPrefix) {
+        String entry = relativePatchPath.substring(patchesPrefix.length(), relativePatchPath.length() - PATCH_EXTENSION.length());
+        if (entry.startsWith("/")) {
+            entry = entry.substring(1);
+        }
+        return entry;
+    }
+
+    private static String relativize(final Path root, final Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static boolean isZip(final Path file) {
+        final String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".zip") || name.endsWith(".jar");
+    }
+
+    @FunctionalInterface
+    private interface ShardOperation {
+        int run(int index, List<String> shard) throws IOException;
+    }
+
+    /**
+     * The file entries of an archive or directory.
+     */
+    private static final class EntryIndex implements Closeable {
+        @Nullable
+        private final ZipFile zip;
+        @Nullable
+        private final Path directory;
+        private final Map<String, Long> sizes = new TreeMap<>();
+
+        private EntryIndex(@Nullable ZipFile zip, @Nullable Path directory) {
+            this.zip = zip;
+            this.directory = directory;
+        }
+
+        private static EntryIndex of(final Path path) throws IOException {
+            if (Files.isDirectory(path)) {
+                final EntryIndex index = new EntryIndex(null, path);
+                try (Stream<Path> files = Files.walk(path)) {
+                    files.filter(Files::isRegularFile).forEach(file -> index.sizes.put(relativize(path, file), file.toFile().length()));
+                }
+                return index;
+            }
+
+            final ZipFile zip = new ZipFile(path.toFile());
+            final EntryIndex index = new EntryIndex(zip, null);
+            zip.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .forEach(entry -> index.sizes.put(entry.getName(), entry.getSize()));
+            return index;
+        }
+
+        private Set<String> getNames() {
+            return sizes.keySet();
+        }
+
+        private boolean contains(final String name) {
+            return sizes.containsKey(name);
+        }
+
+        private long size(final String name) {
+            return sizes.getOrDefault(name, 0L);
+        }
+
+        private InputStream open(final String name) throws IOException {
+            if (zip != null) {
+                final ZipEntry entry = zip.getEntry(name);
+                if (entry == null) {
+                    throw new IOException("Missing entry: " + name);
+                }
+                return zip.getInputStream(entry);
+            }
+
+            return Files.newInputStream(directory.resolve(name));
+        }
+
+        private String hash(final String name) throws IOException {
+            try (InputStream stream = open(name)) {
+                return HashFunction.SHA1.hash(stream);
+            }
+        }
+
+        /**
+         * Extracts the given entry into the given directory, if it exists.
+         */
+        private void extract(final String name, final Path target) throws IOException {
+            if (!contains(name)) {
+                return;
+            }
+
+            final Path file = target.resolve(name);
+            Files.createDirectories(file.getParent());
+            try (InputStream stream = open(name)) {
+                Files.copy(stream, file);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (zip != null) {
+                zip.close();
+            }
+        }
+    }
+}
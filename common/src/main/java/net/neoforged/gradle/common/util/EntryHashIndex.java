@@ -0,0 +1,159 @@
+package net.neoforged.gradle.common.util;
+
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The persisted results of an operation over the entries of an archive: for each entry the hash of its base content,
+ * the hash of the change applied to or found in it, and the result it produced.
+ * Together with the options of the run and the hash of the output archive the results were written to.
+ * <p>
+ * This allows a later run to only redo the entries whose inputs changed, and to carry the results of all other entries forward.
+ * It is used by the incremental diffing in {@link DiffPatchUtils} and by the incremental patch application.
+ */
+public final class EntryHashIndex {
+
+    /**
+     * The hash used for entries which do not exist, and the result used for entries which did not produce one.
+     */
+    public static final String MISSING = "-";
+
+    private static final String SEPARATOR = "\t";
+
+    private final String options;
+    private final Map<String, Entry> entries = new TreeMap<>();
+    private String outputHash = MISSING;
+
+    /**
+     * Creates a new empty index.
+     *
+     * @param options The fingerprint of the options of the run, an index is only valid for runs with the same options.
+     */
+    public EntryHashIndex(String options) {
+        this.options = options;
+    }
+
+    /**
+     * Reads the index from the given file, if it is still valid for the given options and output.
+     *
+     * @param file The file to read.
+     * @param options The fingerprint of the options of the current run.
+     * @param output The archive the index should describe.
+     * @return The index, or {@code null} if it does not exist, is broken, or does not match the options or output.
+     */
+    @Nullable
+    public static EntryHashIndex read(final Path file, final String options, final Path output) {
+        if (!Files.isRegularFile(file) || !Files.isRegularFile(output)) {
+            return null;
+        }
+
+        try {
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.size() < 2 || !lines.get(0).equals(HashFunction.SHA1.hash(options))) {
+                return null;
+            }
+
+            final EntryHashIndex index = new EntryHashIndex(options);
+            index.outputHash = lines.get(1);
+            if (!index.outputHash.equals(HashFunction.SHA1.hash(output))) {
+                return null;
+            }
+
+            for (String line : lines.subList(2, lines.size())) {
+                final String[] parts = line.split(SEPARATOR);
+                if (parts.length != 4) {
+                    return null;
+                }
+                index.entries.put(parts[0], new Entry(parts[1], parts[2], parts[3]));
+            }
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index atomically to the given file.
+     *
+     * @param file The file to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void write(final Path file) throws IOException {
+        final List<String> lines = new ArrayList<>(entries.size() + 2);
+        lines.add(HashFunction.SHA1.hash(options));
+        lines.add(outputHash);
+        entries.forEach((name, entry) -> lines.add(String.join(SEPARATOR, name, entry.getBaseHash(), entry.getChangeHash(), entry.getResult())));
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final Path temporary = FileUtils.temporaryPath(file.toAbsolutePath().getParent(), "entry-index");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        FileUtils.atomicMove(temporary, file);
+    }
+
+    public void setOutputHash(final String outputHash) {
+        this.outputHash = outputHash;
+    }
+
+    @Nullable
+    public Entry get(final String name) {
+        return entries.get(name);
+    }
+
+    public void put(final String name, final Entry entry) {
+        entries.put(name, entry);
+    }
+
+    public void remove(final String name) {
+        entries.remove(name);
+    }
+
+    /**
+     * The result of a single entry.
+     */
+    public static final class Entry {
+        private final String baseHash;
+        private final String changeHash;
+        private final String result;
+
+        public Entry(String baseHash, String changeHash, String result) {
+            this.baseHash = baseHash;
+            this.changeHash = changeHash;
+            this.result = result;
+        }
+
+        public String getBaseHash() {
+            return baseHash;
+        }
+
+        /**
+         * @return The hash of the change, the patch that was applied or the modified content that was diffed.
+         */
+        public String getChangeHash() {
+            return changeHash;
+        }
+
+        /**
+         * @return The result of the entry, or {@link #MISSING} if the entry did not produce one.
+         */
+        public String getResult() {
+            return result;
+        }
+
+        /**
+         * @return {@code true} if this result was produced from the given inputs.
+         */
+        public boolean isResultOf(final String baseHash, final String changeHash) {
+            return this.baseHash.equals(baseHash) && this.changeHash.equals(changeHash);
+        }
+    }
+}
@@ -88,4 +88,14 @@ public final class FileCacheUtils {
     public static DirectoryProperty getLibrariesCacheDirectory(Project project) {
         return project.getObjects().directoryProperty().fileValue(new File(project.getGradle().getGradleUserHomeDir(), "caches/minecraft/libraries"));
     }
+    
+    @NotNull
+    public static DirectoryProperty getNativesCacheDirectory(Project project) {
+        return project.getObjects().directoryProperty().fileValue(new File(project.getGradle().getGradleUserHomeDir(), "caches/minecraft/natives"));
+    }
+    
+    @NotNull
+    public static DirectoryProperty getRenderDocCacheDirectory(Project project) {
+        return project.getObjects().directoryProperty().fileValue(new File(project.getGradle().getGradleUserHomeDir(), "caches/renderdoc"));
+    }
 }
@@ -40,7 +40,16 @@ public final class FileDownloadingUtils {
         if (info.type != null && info.type.equals("jar") && info.side.equals("client")) {
             File localPath = new File(getMCDir() + File.separator + "versions" + File.separator + info.version + File.separator + info.version + ".jar");
             if (localPath.exists() && HashFunction.SHA1.hash(localPath).equalsIgnoreCase(info.hash)) {
-                org.apache.commons.io.FileUtils.copyFile(localPath, file);
+                //Never write the target in place, it may be linked into task outputs.
+                final Path target = file.toPath().toAbsolutePath();
+                Files.createDirectories(target.getParent());
+                final Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".download");
+                try {
+                    Files.copy(localPath.toPath(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+                    move(target, tempFile);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
                 return true;
             }
         }
@@ -0,0 +1,52 @@
+package net.neoforged.gradle.common.util;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * The identity of a file on disk, if any of these change the file is considered to be a different file.
+ * <p>
+ * Build services use it to key values derived from the content of a file, so that they are computed again
+ * when the file is rewritten during a build.
+ */
+public final class FileIdentity {
+    private final String path;
+    private final long size;
+    private final long lastModified;
+
+    private FileIdentity(String path, long size, long lastModified) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Captures the current identity of the given file.
+     *
+     * @param file The file.
+     * @return The identity of the file.
+     */
+    public static FileIdentity of(final File file) {
+        return new FileIdentity(file.getAbsolutePath(), file.length(), file.lastModified());
+    }
+
+    /**
+     * @return The absolute path of the file.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final FileIdentity that = (FileIdentity) o;
+        return size == that.size && lastModified == that.lastModified && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, lastModified);
+    }
+}
@@ -0,0 +1,161 @@
+package net.neoforged.gradle.common.util;
+
+import net.neoforged.gradle.util.FileUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Utility for tasks that carry an artifact forward from one location to another.
+ * <p>
+ * Instead of always writing a full byte copy, the target is reused when it already is the same file as the input,
+ * or when it has the size and modification time of the input. Copies keep the modification time of their input,
+ * so a target written by an earlier run is recognized without reading either file.
+ * Otherwise the content is copied into a temporary file next to the target, which then atomically replaces it.
+ * The copy goes through {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, which lets the JDK
+ * use the platform copy offloading (reflinks on copy-on-write filesystems) where available.
+ * <p>
+ * Hard links are only created for entries of the caches in the gradle user home, see
+ * {@link #materializeFromCache(File, File)} and {@link #materialize(File, File, File)}. Those entries are never modified in place, a newer version of an entry is always written to a temporary
+ * file and moved over the old one, so a linked inode keeps its content. Task outputs in the build directory give no
+ * such guarantee, several tasks truncate and rewrite their outputs in place, so they are always copied.
+ */
+public final class FileMaterializationUtils {
+
+    private FileMaterializationUtils() {
+        throw new IllegalStateException("Can not instantiate an instance of: FileMaterializationUtils. This is a utility class");
+    }
+
+    /**
+     * Materializes the given input file at the given output location, as a copy of the input.
+     *
+     * @param input The input file, which must exist.
+     * @param output The output file, its parent directories are created when needed.
+     * @return The strategy that was used to materialize the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Strategy materialize(final File input, final File output) throws IOException {
+        return materialize(input, output, false);
+    }
+
+    /**
+     * Materializes the given entry of a gradle user home cache at the given output location.
+     * The output is hard linked to the entry when the filesystem allows it, and copied otherwise.
+     * <p>
+     * Only use this for cache entries which are replaced atomically and never modified in place.
+     *
+     * @param cacheEntry The cache entry, which must exist.
+     * @param output The output file, its parent directories are created when needed.
+     * @return The strategy that was used to materialize the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Strategy materializeFromCache(final File cacheEntry, final File output) throws IOException {
+        return materialize(cacheEntry, output, true);
+    }
+
+    /**
+     * Materializes the given input file at the given output location.
+     * The output is hard linked to the input when the input is an entry of the given cache directory, and copied otherwise.
+     * <p>
+     * Only pass cache directories whose entries are replaced atomically and never modified in place.
+     *
+     * @param input The input file, which must exist.
+     * @param output The output file, its parent directories are created when needed.
+     * @param cacheDirectory The cache directory whose entries may be linked.
+     * @return The strategy that was used to materialize the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Strategy materialize(final File input, final File output, final File cacheDirectory) throws IOException {
+        final Path source = input.toPath().toAbsolutePath().normalize();
+        return materialize(input, output, source.startsWith(cacheDirectory.toPath().toAbsolutePath().normalize()));
+    }
+
+    private static Strategy materialize(final File input, final File output, final boolean allowLink) throws IOException {
+        final Path source = input.toPath();
+        final Path target = output.toPath();
+
+        if (!Files.isRegularFile(source)) {
+            throw new FileNotFoundException("Can not materialize: " + source + " it does not exist or is not a file");
+        }
+
+        final Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        if (isMaterialized(source, target)) {
+            return Strategy.REUSED;
+        }
+
+        if (allowLink) {
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, source);
+                return Strategy.LINKED;
+            } catch (IOException | UnsupportedOperationException | SecurityException ignored) {
+                //Different file stores, or links are not supported by the filesystem, fall back to a copy.
+            }
+        }
+
+        //The copy replaces the target atomically, an existing target is never written in place, in case it is linked somewhere else.
+        final Path temporary = FileUtils.temporaryPath(target.toAbsolutePath().getParent(), target.getFileName().toString());
+        try {
+            Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            FileUtils.atomicMove(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return Strategy.COPIED;
+    }
+
+    /**
+     * Materializes the given input file at the given output location, rethrowing any exception as a {@link RuntimeException}.
+     *
+     * @param input The input file, which must exist.
+     * @param output The output file.
+     * @return The strategy that was used to materialize the file.
+     */
+    public static Strategy materializeUnchecked(final File input, final File output) {
+        try {
+            return materialize(input, output);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to materialize: %s to output: %s", input.getAbsolutePath(), output.getAbsolutePath()), e);
+        }
+    }
+
+    private static boolean isMaterialized(final Path source, final Path target) throws IOException {
+        if (!Files.isRegularFile(target)) {
+            return false;
+        }
+
+        if (Files.isSameFile(source, target)) {
+            return true;
+        }
+
+        //Copies keep the modification time of their source, so this identifies an earlier copy without hashing both files.
+        return Files.size(source) == Files.size(target)
+                && Files.getLastModifiedTime(source).equals(Files.getLastModifiedTime(target));
+    }
+
+    /**
+     * The way a file was materialized.
+     */
+    public enum Strategy {
+        /**
+         * The output already was the input, or a copy of it, and was left untouched.
+         */
+        REUSED,
+        /**
+         * The output was created as a hard link to the input.
+         */
+        LINKED,
+        /**
+         * The output was created as a copy of the input.
+         */
+        COPIED
+    }
+}
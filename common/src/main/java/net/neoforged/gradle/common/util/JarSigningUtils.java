@@ -0,0 +1,255 @@
+package net.neoforged.gradle.common.util;
+
+import jdk.security.jarsigner.JarSigner;
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.CertPath;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Signs jars without rewriting them through an external tool.
+ * <p>
+ * The digests of the entries are computed while streaming the source jar once, after which only the manifest is handed
+ * to the JDK jar signer to produce the signature file and signature block. The signed jar is then written in a single
+ * pass, with every original entry copied in its raw, still compressed, form.
+ */
+public final class JarSigningUtils {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String DIGEST_ATTRIBUTE = DIGEST_ALGORITHM + "-Digest";
+    private static final String DEFAULT_KEY_STORE = System.getProperty("user.home") + File.separator + ".keystore";
+
+    private JarSigningUtils() {
+        throw new IllegalStateException("Can not instantiate an instance of: JarSigningUtils. This is a utility class");
+    }
+
+    /**
+     * Creates the signature entries for the given jar.
+     *
+     * @param jar The jar to sign.
+     * @param shouldSign Decides which entries are covered by the signature.
+     * @param key The key to sign with.
+     * @return The manifest, signature file and signature block, keyed by their entry names, in the order they need to be written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static Map<String, byte[]> createSignatureEntries(final File jar, final Predicate<ZipEntry> shouldSign, final SigningKey key) throws IOException {
+        final Manifest manifest;
+        try (ZipFile zip = ZipFile.builder().setFile(jar).get()) {
+            manifest = readManifest(zip);
+
+            final MessageDigest digest = createDigest();
+            final byte[] buffer = new byte[8192];
+            for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+                if (entry.isDirectory() || isSignatureRelated(entry.getName()) || !shouldSign.test(entry)) {
+                    continue;
+                }
+
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    int read;
+                    while ((read = stream.read(buffer)) != -1) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                manifest.getEntries()
+                        .computeIfAbsent(entry.getName(), name -> new Attributes())
+                        .putValue(DIGEST_ATTRIBUTE, Base64.getEncoder().encodeToString(digest.digest()));
+            }
+        }
+
+        return sign(manifest, key);
+    }
+
+    /**
+     * Writes the signed jar.
+     *
+     * @param jar The jar which was signed.
+     * @param signatureEntries The signature entries, as created by {@link #createSignatureEntries(File, Predicate, SigningKey)}.
+     * @param output The signed jar to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writeSignedJar(final File jar, final Map<String, byte[]> signatureEntries, final File output) throws IOException {
+        final Path parent = Files.createDirectories(output.toPath().toAbsolutePath().getParent());
+        final Path temporary = FileUtils.temporaryPath(parent, "signed");
+        try (ZipFile zip = ZipFile.builder().setFile(jar).get();
+             ZipArchiveOutputStream out = new ZipArchiveOutputStream(temporary)) {
+            for (Map.Entry<String, byte[]> signatureEntry : signatureEntries.entrySet()) {
+                out.putArchiveEntry(new ZipArchiveEntry(FileUtils.getStableEntry(signatureEntry.getKey())));
+                out.write(signatureEntry.getValue());
+                out.closeArchiveEntry();
+            }
+
+            ZipCopyUtils.copyRaw(zip, out, entry -> !signatureEntries.containsKey(entry.getName().toUpperCase(Locale.ROOT)));
+        }
+        FileUtils.atomicMove(temporary, output.toPath());
+    }
+
+    private static Map<String, byte[]> sign(final Manifest manifest, final SigningKey key) throws IOException {
+        //The signature file and block only depend on the manifest, so only the manifest is handed to the signer.
+        final ByteArrayOutputStream unsigned = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(unsigned)) {
+            zip.putNextEntry(FileUtils.getStableEntry(JarFile.MANIFEST_NAME));
+            manifest.write(zip);
+            zip.closeEntry();
+        }
+
+        final Path temporary = Files.createTempFile("unsigned", ".jar");
+        final ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        try {
+            Files.write(temporary, unsigned.toByteArray());
+            try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(temporary.toFile())) {
+                new JarSigner.Builder(key.privateKey, key.certificates)
+                        .digestAlgorithm(DIGEST_ALGORITHM)
+                        .signerName(key.signerName)
+                        .build()
+                        .sign(zip, signed);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(signed.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                result.put(entry.getName().toUpperCase(Locale.ROOT), zip.readAllBytes());
+            }
+        }
+        return result;
+    }
+
+    private static Manifest readManifest(final ZipFile zip) throws IOException {
+        final ZipArchiveEntry entry = zip.getEntry(JarFile.MANIFEST_NAME);
+        final Manifest manifest = new Manifest();
+        if (entry != null) {
+            try (InputStream stream = zip.getInputStream(entry)) {
+                manifest.read(stream);
+            }
+        }
+
+        manifest.getMainAttributes().putIfAbsent(Attributes.Name.MANIFEST_VERSION, "1.0");
+        //Digests of a previous signature are replaced, not merged.
+        manifest.getEntries().values().forEach(attributes -> attributes.keySet().removeIf(name -> name.toString().endsWith("-Digest")));
+        return manifest;
+    }
+
+    private static boolean isSignatureRelated(final String name) {
+        final String upperCase = name.toUpperCase(Locale.ROOT);
+        if (!upperCase.startsWith("META-INF/") || upperCase.indexOf('/', "META-INF/".length()) != -1) {
+            return false;
+        }
+
+        return upperCase.equals(JarFile.MANIFEST_NAME)
+                || upperCase.endsWith(".SF")
+                || upperCase.endsWith(".RSA")
+                || upperCase.endsWith(".DSA")
+                || upperCase.endsWith(".EC")
+                || upperCase.startsWith("META-INF/SIG-");
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("The JVM does not support the " + DIGEST_ALGORITHM + " digest", e);
+        }
+    }
+
+    /**
+     * A private key, and its certificate chain, loaded from a key store.
+     */
+    public static final class SigningKey {
+        private final PrivateKey privateKey;
+        private final CertPath certificates;
+        private final String signerName;
+
+        private SigningKey(PrivateKey privateKey, CertPath certificates, String signerName) {
+            this.privateKey = privateKey;
+            this.certificates = certificates;
+            this.signerName = signerName;
+        }
+
+        /**
+         * Loads the key with the given alias.
+         *
+         * @param keyStore The path to the key store, or {@code null} to use the default key store of the user.
+         * @param storePass The password of the key store.
+         * @param alias The alias of the key.
+         * @param keyPass The password of the key, or {@code null} if it is the same as the password of the key store.
+         * @return The key.
+         * @throws IOException If the key store can not be read, or does not contain the key.
+         */
+        public static SigningKey load(final String keyStore, final String storePass, final String alias, final String keyPass) throws IOException {
+            final File keyStoreFile = new File(keyStore == null ? DEFAULT_KEY_STORE : keyStore);
+            try (InputStream stream = Files.newInputStream(keyStoreFile.toPath())) {
+                final KeyStore store = KeyStore.getInstance(KeyStore.getDefaultType());
+                store.load(stream, storePass.toCharArray());
+
+                final char[] password = (keyPass == null ? storePass : keyPass).toCharArray();
+                final Key privateKey = store.getKey(alias, password);
+                if (!(privateKey instanceof PrivateKey)) {
+                    throw new IOException("The key store: " + keyStoreFile + " does not contain a private key with the alias: " + alias);
+                }
+
+                final Certificate[] chain = store.getCertificateChain(alias);
+                final CertPath certificates = CertificateFactory.getInstance("X.509").generateCertPath(Arrays.asList(chain));
+                return new SigningKey((PrivateKey) privateKey, certificates, toSignerName(alias));
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to load the key: " + alias + " from the key store: " + keyStoreFile, e);
+            }
+        }
+
+        /**
+         * @return A fingerprint of the certificates of this key, which changes whenever a different key would be used to sign.
+         */
+        public String getFingerprint() throws IOException {
+            try {
+                return signerName + ":" + HashFunction.SHA256.hash(certificates.getEncoded());
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to encode the certificates of the signer: " + signerName, e);
+            }
+        }
+
+        /**
+         * Derives the name of the signature files from the alias, the same way the jarsigner tool does.
+         */
+        private static String toSignerName(final String alias) {
+            final String upperCase = alias.toUpperCase(Locale.ROOT);
+            final StringBuilder name = new StringBuilder();
+            for (int i = 0; i < upperCase.length() && name.length() < 8; i++) {
+                final char c = upperCase.charAt(i);
+                name.append((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' ? c : '_');
+            }
+            return name.toString();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package net.neoforged.gradle.common.util;
+
+import net.neoforged.gradle.util.FileUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.function.Predicate;
+
+/**
+ * Utility for copying entries between zip files without extracting or recompressing them.
+ * <p>
+ * The entries are located through the central directory of the source, and their compressed bytes are written to the
+ * target as is, together with their original CRC, sizes and timestamps.
+ */
+public final class ZipCopyUtils {
+
+    private ZipCopyUtils() {
+        throw new IllegalStateException("Can not instantiate an instance of: ZipCopyUtils. This is a utility class");
+    }
+
+    /**
+     * Writes a new zip file containing the raw entries of the input which match the given filter.
+     *
+     * @param input The zip file to copy from.
+     * @param output The zip file to write, it is replaced atomically.
+     * @param filter Decides which entries are copied.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void copyRaw(final File input, final File output, final Predicate<ZipArchiveEntry> filter) throws IOException {
+        final Path parent = Files.createDirectories(output.toPath().toAbsolutePath().getParent());
+        final Path temporary = FileUtils.temporaryPath(parent, output.getName());
+        try {
+            try (ZipFile zip = ZipFile.builder().setFile(input).get();
+                 ZipArchiveOutputStream out = new ZipArchiveOutputStream(temporary)) {
+                copyRaw(zip, out, filter);
+            }
+            FileUtils.atomicMove(temporary, output.toPath());
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Copies the raw entries of the given zip which match the given filter, in their physical order.
+     *
+     * @param zip The zip file to copy from.
+     * @param out The stream to copy to.
+     * @param filter Decides which entries are copied.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void copyRaw(final ZipFile zip, final ZipArchiveOutputStream out, final Predicate<ZipArchiveEntry> filter) throws IOException {
+        for (ZipArchiveEntry entry : Collections.list(zip.getEntriesInPhysicalOrder())) {
+            if (!filter.test(entry)) {
+                continue;
+            }
+
+            try (InputStream raw = zip.getRawInputStream(entry)) {
+                out.addRawArchiveEntry(entry, raw);
+            }
+        }
+    }
+}
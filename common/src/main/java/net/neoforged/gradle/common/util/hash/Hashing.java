@@ -11,9 +11,17 @@ import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Hashing {
     private static final HashFunction MD5 = MessageDigestHashFunction.of("MD5");
@@ -60,18 +68,34 @@ public class Hashing {
         return DEFAULT.hashFile(file);
     }
 
+    /**
+     * Hashes the given directory.
+     * <p>
+     * The hash is computed over a manifest of all regular files in the directory, sorted by their relative path,
+     * using forward slashes as separators. This makes the hash independent of the file system iteration order,
+     * the platform and the location of the directory itself.
+     *
+     * @param file The directory to hash.
+     * @return The hash of the directory.
+     * @throws IOException If an I/O error occurs.
+     */
     public static HashCode hashDirectory(File file) throws IOException {
+        final Path root = file.toPath();
+        final List<Path> files;
+        try (Stream<Path> stream = java.nio.file.Files.walk(root)) {
+            files = stream.filter(java.nio.file.Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        final TreeMap<String, Path> manifest = new TreeMap<>();
+        for (Path path : files) {
+            manifest.put(root.relativize(path).toString().replace('\\', '/'), path);
+        }
+
         Hasher hasher = newHasher();
         hasher.putString("DIRECTORY");
-        hasher.putString(file.getName());
-        for (File listFile : Objects.requireNonNull(file.listFiles())) {
-            final HashCode innerHash;
-            if (listFile.isFile()) {
-                 innerHash = hashFile(listFile);
-            } else {
-                innerHash = hashDirectory(listFile);
-            }
-            hasher.putHash(innerHash);
+        for (Map.Entry<String, Path> entry : manifest.entrySet()) {
+            hasher.putString(entry.getKey());
+            hasher.putHash(hashFile(entry.getValue().toFile()));
         }
         return hasher.hash();
     }
@@ -376,7 +400,9 @@ public class Hashing {
                 if (file.isDirectory()) {
                     final Hasher hasher = this.newHasher();
 
-                    for (File listFile : Objects.requireNonNull(file.listFiles())) {
+                    final File[] listFiles = Objects.requireNonNull(file.listFiles());
+                    Arrays.sort(listFiles, Comparator.comparing(File::getName));
+                    for (File listFile : listFiles) {
                         final HashCode innerHash = this.hashFile(listFile);
                         hasher.putHash(innerHash);
                     }
@@ -5,6 +5,9 @@ import com.google.common.collect.Multimap;
 import net.neoforged.gradle.common.extensions.IdeManagementExtension;
 import net.neoforged.gradle.common.extensions.NeoGradleProblemReporter;
 import net.neoforged.gradle.common.runs.run.RunImpl;
+import net.neoforged.gradle.common.runs.tasks.WriteArgsFile;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
+import net.neoforged.gradle.common.services.ide.IdeaProjectMetadataService;
 import net.neoforged.gradle.common.tasks.RenderDocDownloaderTask;
 import net.neoforged.gradle.common.util.ClasspathUtils;
 import net.neoforged.gradle.common.util.ConfigurationUtils;
@@ -16,6 +19,7 @@ import net.neoforged.gradle.dsl.common.extensions.subsystems.tools.RenderDocTool
 import net.neoforged.gradle.dsl.common.runs.idea.extensions.IdeaRunsExtension;
 import net.neoforged.gradle.dsl.common.runs.run.Run;
 import net.neoforged.gradle.dsl.common.runs.run.RunDevLoginOptions;
+import net.neoforged.gradle.util.FileHashCache;
 import net.neoforged.gradle.util.StringCapitalizationUtils;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
@@ -38,14 +42,8 @@ import org.gradle.plugins.ide.idea.model.IdeaModule;
 import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.xml.sax.InputSource;
 
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -220,11 +218,14 @@ public class RunsUtil {
                 throw new InvalidUserDataException("RenderDoc can only be enabled for client runs.");
 
             final RenderDocTools renderDocTools = project.getExtensions().getByType(Subsystems.class).getTools().getRenderDoc();
-            final TaskProvider<RenderDocDownloaderTask> setupRenderDoc = project.getTasks().register(RunsUtil.createTaskName("setupRenderDoc", run), RenderDocDownloaderTask.class, renderDoc -> {
-                renderDoc.getRenderDocVersion().set(renderDocTools.getRenderDocVersion());
-                renderDoc.getRenderDocOutputDirectory().set(renderDocTools.getRenderDocPath().dir("download"));
-                renderDoc.getRenderDocInstallationDirectory().set(renderDocTools.getRenderDocPath().dir("installation"));
-            });
+            //The installation is shared by all runs of the project, and through the cache by all projects.
+            final TaskProvider<RenderDocDownloaderTask> setupRenderDoc = project.getTasks().getNames().contains("setupRenderDoc") ?
+                    project.getTasks().named("setupRenderDoc", RenderDocDownloaderTask.class) :
+                    project.getTasks().register("setupRenderDoc", RenderDocDownloaderTask.class, renderDoc -> {
+                        renderDoc.getRenderDocVersion().set(renderDocTools.getRenderDocVersion());
+                        renderDoc.getRenderDocOutputDirectory().set(renderDocTools.getRenderDocPath().zip(renderDocTools.getRenderDocVersion(), (path, version) -> path.dir(version).dir("download")));
+                        renderDoc.getRenderDocInstallationDirectory().set(renderDocTools.getRenderDocPath().zip(renderDocTools.getRenderDocVersion(), (path, version) -> path.dir(version).dir("installation")));
+                    });
 
             run.getDependsOn().add(setupRenderDoc);
 
@@ -297,12 +298,23 @@ public class RunsUtil {
         if (run.getModSources().getPrimary().isPresent()) {
             final SourceSet primary = run.getModSources().getPrimary().get();
 
-            final boolean primaryHasMinecraft = primary.getRuntimeClasspath().getFiles().stream().anyMatch(ClasspathUtils::isMinecraftClasspathEntry);
-
             //Remove any classpath entries that are already in the primary runtime classpath.
             //Also remove any classpath entries that are Minecraft, we can only have one Minecraft jar, in the case that the primary runtime classpath already has Minecraft.
-            final FileCollection runtimeClasspathWithoutMinecraftAndWithoutPrimaryRuntimeClasspath =
-                    runExec.classpath().getClasspath().filter(file -> !primary.getRuntimeClasspath().contains(file) && (!primaryHasMinecraft || !ClasspathUtils.isMinecraftClasspathEntry(file)));
+            //Both classpaths are only resolved once per query, and subtracted through a set, instead of scanning the primary classpath for every entry.
+            //The minecraft classification of the entries is cached in the file hash cache of the build.
+            final Provider<FileHashCacheService> hashCacheService = FileHashCacheService.register(runExec.getProject());
+            runExec.usesService(hashCacheService);
+            final FileCollection runtimeClasspathWithoutMinecraftAndWithoutPrimaryRuntimeClasspath = runExec.getProject().files(
+                    runExec.classpath().getClasspath().getElements().zip(primary.getRuntimeClasspath().getElements(), (runElements, primaryElements) -> {
+                        final FileHashCache hashCache = FileHashCacheService.getCache(hashCacheService);
+                        final Set<File> primaryFiles = primaryElements.stream().map(FileSystemLocation::getAsFile).collect(Collectors.toSet());
+                        final List<File> remaining = ClasspathUtils.subtract(runElements.stream().map(FileSystemLocation::getAsFile).toList(), primaryFiles);
+                        if (primaryFiles.stream().anyMatch(file -> ClasspathUtils.isMinecraftClasspathEntry(file, hashCache))) {
+                            remaining.removeIf(file -> ClasspathUtils.isMinecraftClasspathEntry(file, hashCache));
+                        }
+                        return remaining;
+                    })
+            );
 
             //Combine with the primary runtime classpath.
             final FileCollection combinedClasspath = primary.getRuntimeClasspath().plus(runtimeClasspathWithoutMinecraftAndWithoutPrimaryRuntimeClasspath);
@@ -396,46 +408,67 @@ public class RunsUtil {
     public record PreparedUnitTestEnvironment(File programArgumentsFile, File jvmArgumentsFile) {
     }
 
+    /**
+     * Gets the locations of the argument files of the given unit test run.
+     * The files are written by the tasks returned from {@link #createUnitTestArgsFileTasks(Run)}, anything that reads them has to depend on those.
+     */
     public static PreparedUnitTestEnvironment prepareUnitTestEnvironment(Run run) {
-
         return new PreparedUnitTestEnvironment(
-                createArgsFile(run.getWorkingDirectory().file("%s_test_args.txt".formatted(run.getName())), run.getArguments()),
-                createArgsFile(run.getWorkingDirectory().file("%s_jvm_args.txt".formatted(run.getName())), run.getJvmArguments())
+                getProgramArgumentsFile(run).get().getAsFile(),
+                getJvmArgumentsFile(run).get().getAsFile()
         );
     }
 
-    private static File createArgsFile(Provider<RegularFile> outputFile, ListProperty<String> inputs) {
-        final File output = outputFile.get().getAsFile();
+    /**
+     * Gets, or registers, the tasks which write the argument files of the given unit test run.
+     * <p>
+     * The tasks are up-to-date as long as the arguments of the run do not change, so the files are not rewritten on every configuration.
+     *
+     * @param run The unit test run.
+     * @return The tasks writing the program and jvm argument files.
+     */
+    public static List<TaskProvider<WriteArgsFile>> createUnitTestArgsFileTasks(Run run) {
+        return List.of(
+                getOrCreateArgsFileTask(run, "ProgramArgsFile", getProgramArgumentsFile(run), run.getArguments()),
+                getOrCreateArgsFileTask(run, "JvmArgsFile", getJvmArgumentsFile(run), run.getJvmArguments())
+        );
+    }
 
-        if (!output.getParentFile().exists()) {
-            if (!output.getParentFile().mkdirs()) {
-                throw new RuntimeException("Failed to create directory: " + output.getParentFile());
-            }
-        }
-        try {
-            final List<String> value = deduplicateElementsFollowingEachOther(inputs.get().stream()).toList();
-            if (output.exists()) {
-                if (Files.readAllLines(output.toPath()).equals(value)) {
-                    return output;
-                }
+    private static Provider<RegularFile> getProgramArgumentsFile(Run run) {
+        return run.getWorkingDirectory().file("%s_test_args.txt".formatted(run.getName()));
+    }
 
-                if (!output.delete()) {
-                    throw new RuntimeException("Failed to delete file: " + output);
-                }
-            }
+    private static Provider<RegularFile> getJvmArgumentsFile(Run run) {
+        return run.getWorkingDirectory().file("%s_jvm_args.txt".formatted(run.getName()));
+    }
 
-            Files.write(output.toPath(), value, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static TaskProvider<WriteArgsFile> getOrCreateArgsFileTask(Run run, String suffix, Provider<RegularFile> outputFile, ListProperty<String> inputs) {
+        final Project project = run.getProject();
+        final String taskName = createTaskName("write", run) + suffix;
+        if (project.getTasks().getNames().contains(taskName)) {
+            final TaskProvider<WriteArgsFile> existing = project.getTasks().named(taskName, WriteArgsFile.class);
+            existing.configure(task -> {
+                if (!task.getRunName().get().equals(run.getName())) {
+                    throw new InvalidUserDataException("The runs: %s and %s both need the task: %s, rename one of them".formatted(task.getRunName().get(), run.getName(), taskName));
+                }
+            });
+            return existing;
         }
 
-        return output;
+        return project.getTasks().register(taskName, WriteArgsFile.class, task -> {
+            task.getRunName().set(run.getName());
+            task.getArguments().set(inputs.map(arguments -> deduplicateElementsFollowingEachOther(arguments.stream()).toList()));
+            task.getArgsFile().set(outputFile);
+        });
     }
 
     private static void configureTestTask(Project project, TaskProvider<Test> testTaskProvider, Run run) {
+        final List<TaskProvider<WriteArgsFile>> argsFileTasks = createUnitTestArgsFileTasks(run);
         testTaskProvider.configure(testTask -> {
             PreparedUnitTestEnvironment preparedEnvironment = prepareUnitTestEnvironment(run);
 
+            testTask.dependsOn(argsFileTasks);
+
             addRunSourcesDependenciesToTask(testTask, run, true);
             testTask.getDependsOn().add(run.getDependsOn());
             testTask.getDependsOn().add(run.getPostSyncTasks()); //We need this additionally here in case the user runs this through gradle without an IDE
@@ -539,7 +572,7 @@ public class RunsUtil {
     }
 
     @Language("xpath")
-    public static final String IDEA_OUTPUT_XPATH = "/project/component[@name='ProjectRootManager']/output/@url";
+    public static final String IDEA_OUTPUT_XPATH = IdeaProjectMetadataService.IDEA_OUTPUT_XPATH;
 
     public static Provider<Directory> getDefaultIdeaProjectOutDirectory(final Project project) {
         File ideaDir = getIntellijProjectDir(project);
@@ -548,8 +581,7 @@ public class RunsUtil {
         }
 
         // Find configured output path
-        File miscXml = new File(ideaDir, "misc.xml");
-        String outputDirUrl = evaluateXPath(miscXml, IDEA_OUTPUT_XPATH);
+        String outputDirUrl = IdeaProjectMetadataService.register(project).get().getOutputDirectoryUrl(ideaDir);
         if (outputDirUrl == null) {
             // Apparently IntelliJ defaults to out/ now?
             outputDirUrl = "file://$PROJECT_DIR$/out";
@@ -587,19 +619,6 @@ public class RunsUtil {
         return ideaDir.exists() ? ideaDir : null;
     }
 
-    @SuppressWarnings("SameParameterValue")
-    @Nullable
-    private static String evaluateXPath(File file, @Language("xpath") String expression) {
-        try (var fis = new FileInputStream(file)) {
-            String result = XPathFactory.newInstance().newXPath().evaluate(expression, new InputSource(fis));
-            return result.isBlank() ? null : result;
-        } catch (FileNotFoundException | XPathExpressionException ignored) {
-            return null;
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to evaluate xpath " + expression + " on file " + file, e);
-        }
-    }
-
     public static Provider<Directory> getIdeaModuleOutDirectory(final SourceSet sourceSet, final IdeaCompileType ideaCompileType) {
         final Project project = SourceSetUtils.getProject(sourceSet);
         final IdeaModel ideaModel = project.getExtensions().getByType(IdeaModel.class);
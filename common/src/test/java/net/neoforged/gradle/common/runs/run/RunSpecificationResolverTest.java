@@ -0,0 +1,96 @@
+package net.neoforged.gradle.common.runs.run;
+
+import net.neoforged.gradle.dsl.common.runs.RunSpecification;
+import org.gradle.api.Project;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RunSpecificationResolverTest {
+
+    private Project project;
+    private ListProperty<RunSpecification> specifications;
+    private RunSpecificationResolver resolver;
+    private AtomicInteger compilations;
+
+    @BeforeEach
+    public void setup() {
+        project = ProjectBuilder.builder().build();
+        specifications = project.getObjects().listProperty(RunSpecification.class);
+        resolver = new RunSpecificationResolver(project, specifications);
+        compilations = new AtomicInteger();
+    }
+
+    @Test
+    public void unchangedSpecificationsAreOnlyCompiledOnce() {
+        specifications.add(createSpecification("first"));
+        final Provider<String> mainClass = lastMainClass();
+
+        assertEquals("first", mainClass.get());
+        assertEquals("first", mainClass.get());
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void addedSpecificationInvalidatesTheSnapshot() {
+        specifications.add(createSpecification("first"));
+        final Provider<String> mainClass = lastMainClass();
+        assertEquals("first", mainClass.get());
+
+        specifications.add(createSpecification("second"));
+
+        assertEquals("second", mainClass.get());
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void specificationResolvingToAnotherInstanceInvalidatesTheSnapshot() {
+        final AtomicReference<RunSpecification> current = new AtomicReference<>(createSpecification("first"));
+        specifications.add(project.provider(current::get));
+        final Provider<String> mainClass = lastMainClass();
+        assertEquals("first", mainClass.get());
+
+        current.set(createSpecification("replaced"));
+
+        assertEquals("replaced", mainClass.get());
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void changedValueOfASpecificationIsPickedUpWithoutRecompiling() {
+        final RunSpecification specification = createSpecification("first");
+        specifications.add(specification);
+        final Provider<String> mainClass = lastMainClass();
+        assertEquals("first", mainClass.get());
+
+        specification.getMainClass().set("changed");
+
+        assertEquals("changed", mainClass.get());
+        assertEquals(1, compilations.get());
+    }
+
+    private Provider<String> lastMainClass() {
+        return resolver.fromSpecifications(() -> {
+            compilations.incrementAndGet();
+            return resolved -> resolved.get(resolved.size() - 1).getMainClass();
+        });
+    }
+
+    private RunSpecification createSpecification(final String mainClass) {
+        final Property<String> property = project.getObjects().property(String.class);
+        property.set(mainClass);
+
+        final RunSpecification specification = mock(RunSpecification.class);
+        when(specification.getMainClass()).thenReturn(property);
+        return specification;
+    }
+}
@@ -0,0 +1,41 @@
+package net.neoforged.gradle.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ClasspathUtilsTest {
+
+    private static final File FIRST = new File("first.jar");
+    private static final File SECOND = new File("second.jar");
+    private static final File THIRD = new File("third.jar");
+
+    @Test
+    public void subtractKeepsTheOrderOfTheRemainingEntries() {
+        assertEquals(List.of(THIRD, FIRST), ClasspathUtils.subtract(List.of(THIRD, SECOND, FIRST), List.of(SECOND)));
+    }
+
+    @Test
+    public void subtractRemovesEveryOccurrenceOfAnEntry() {
+        assertEquals(List.of(FIRST, THIRD), ClasspathUtils.subtract(List.of(FIRST, SECOND, THIRD, SECOND), Set.of(SECOND)));
+    }
+
+    @Test
+    public void subtractIgnoresEntriesWhichAreNotOnTheClasspath() {
+        assertEquals(List.of(FIRST, SECOND), ClasspathUtils.subtract(List.of(FIRST, SECOND), List.of(THIRD)));
+    }
+
+    @Test
+    public void subtractOfNothingKeepsTheClasspath() {
+        assertEquals(List.of(FIRST, SECOND), ClasspathUtils.subtract(List.of(FIRST, SECOND), List.of()));
+    }
+
+    @Test
+    public void subtractOfEverythingLeavesNothing() {
+        assertEquals(List.of(), ClasspathUtils.subtract(List.of(FIRST, SECOND), List.of(SECOND, FIRST)));
+    }
+}
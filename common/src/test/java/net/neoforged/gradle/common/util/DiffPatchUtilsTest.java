@@ -0,0 +1,150 @@
+package net.neoforged.gradle.common.util;
+
+import io.codechicken.diffpatch.cli.DiffOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+import static net.neoforged.gradle.utils.test.ZipFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiffPatchUtilsTest {
+
+    @TempDir
+    public Path directory;
+
+    private Path base;
+    private Path modified;
+    private Path output;
+    private Path index;
+    private Map<String, String> modifiedEntries;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        executor = Executors.newFixedThreadPool(2);
+        base = directory.resolve("base.jar");
+        modified = directory.resolve("modified.jar");
+        output = directory.resolve("output/patches.zip");
+        index = directory.resolve("output/diff-index.txt");
+
+        writeTextArchive(base, Map.of(
+                "a/Foo.java", "one\ntwo\nthree\n",
+                "a/Bar.java", "four\nfive\nsix\n",
+                "a/Baz.java", "seven\neight\nnine\n"
+        ));
+        modifiedEntries = new HashMap<>(Map.of(
+                "a/Foo.java", "one\npatched two\nthree\n",
+                "a/Bar.java", "four\npatched five\nsix\n",
+                "a/Baz.java", "seven\neight\nnine\n"
+        ));
+        writeTextArchive(modified, modifiedEntries);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void modifiedEntryIsDiffedAgain() throws IOException {
+        diff(3);
+
+        modifiedEntries.put("a/Foo.java", "one\npatched two again\nthree\n");
+        writeTextArchive(modified, modifiedEntries);
+        diff(3);
+
+        assertTrue(readTextArchive(output).get("a/Foo.java.patch").contains("+patched two again"));
+        assertTrue(readTextArchive(output).get("a/Bar.java.patch").contains("+patched five"));
+        assertOutputMatchesFullDiff(3);
+    }
+
+    @Test
+    public void addedEntryIsDiffed() throws IOException {
+        diff(3);
+
+        modifiedEntries.put("a/Qux.java", "ten\n");
+        writeTextArchive(modified, modifiedEntries);
+        diff(3);
+
+        assertTrue(readTextArchive(output).containsKey("a/Qux.java.patch"));
+        assertOutputMatchesFullDiff(3);
+    }
+
+    @Test
+    public void entryWhichNoLongerDiffersDropsItsPatch() throws IOException {
+        diff(3);
+
+        modifiedEntries.put("a/Foo.java", "one\ntwo\nthree\n");
+        writeTextArchive(modified, modifiedEntries);
+        diff(3);
+
+        assertFalse(readTextArchive(output).containsKey("a/Foo.java.patch"));
+        assertTrue(readTextArchive(output).containsKey("a/Bar.java.patch"));
+        assertOutputMatchesFullDiff(3);
+    }
+
+    @Test
+    public void removedEntryIsDiffed() throws IOException {
+        diff(3);
+
+        modifiedEntries.remove("a/Baz.java");
+        writeTextArchive(modified, modifiedEntries);
+        diff(3);
+
+        assertOutputMatchesFullDiff(3);
+    }
+
+    @Test
+    public void changedBaseEntryIsDiffedAgain() throws IOException {
+        diff(3);
+
+        writeTextArchive(base, Map.of(
+                "a/Foo.java", "zero\none\ntwo\nthree\n",
+                "a/Bar.java", "four\nfive\nsix\n",
+                "a/Baz.java", "seven\neight\nnine\n"
+        ));
+        diff(3);
+
+        assertTrue(readTextArchive(output).get("a/Foo.java.patch").contains("-zero"));
+        assertOutputMatchesFullDiff(3);
+    }
+
+    @Test
+    public void changedOptionsDiffAllEntriesAgain() throws IOException {
+        diff(3);
+        assertNotNull(EntryHashIndex.read(index, "context:3", output));
+
+        diff(0);
+
+        assertNull(EntryHashIndex.read(index, "context:3", output));
+        assertOutputMatchesFullDiff(0);
+    }
+
+    private void diff(final int context) throws IOException {
+        final int exit = DiffPatchUtils.diff(base, modified, output, index, "context:" + context, directory.resolve("tmp"), 2, executor, options(context));
+        assertTrue(exit == 0 || exit == 1);
+    }
+
+    private void assertOutputMatchesFullDiff(final int context) throws IOException {
+        final Path full = directory.resolve("full/patches.zip");
+        DiffPatchUtils.diff(base, modified, full, directory.resolve("fullTmp"), 2, executor, options(context));
+
+        assertEquals(readTextArchive(full), readTextArchive(output));
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(output));
+    }
+
+    private static UnaryOperator<DiffOperation.Builder> options(final int context) {
+        return builder -> builder.aPrefix("a/").bPrefix("b/").lineEnding("\n").context(context);
+    }
+}
@@ -0,0 +1,127 @@
+package net.neoforged.gradle.common.util;
+
+import net.neoforged.gradle.util.HashFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntryHashIndexTest {
+
+    private static final String OPTIONS = "a/\nb/\n\n3\ntrue";
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void writtenIndexCanBeReadAgain() throws IOException {
+        final Path output = writeOutput("patches");
+        final EntryHashIndex read = roundTrip(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+
+        assertTrue(read.get("a/Foo.java").isResultOf("base", "change"));
+        assertEquals("a/Foo.java.patch", read.get("a/Foo.java").getResult());
+    }
+
+    @Test
+    public void changedOptionsInvalidateTheIndex() throws IOException {
+        final Path output = writeOutput("patches");
+        final Path file = write(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+
+        assertNull(EntryHashIndex.read(file, OPTIONS.replace("3", "5"), output));
+        assertNotNull(EntryHashIndex.read(file, OPTIONS, output));
+    }
+
+    @Test
+    public void changedOrMissingOutputInvalidatesTheIndex() throws IOException {
+        final Path output = writeOutput("patches");
+        final Path file = write(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+
+        Files.writeString(output, "other patches", StandardCharsets.UTF_8);
+        assertNull(EntryHashIndex.read(file, OPTIONS, output));
+
+        Files.delete(output);
+        assertNull(EntryHashIndex.read(file, OPTIONS, output));
+    }
+
+    @Test
+    public void missingOrCorruptIndexIsNotRead() throws IOException {
+        final Path output = writeOutput("patches");
+        final Path file = directory.resolve("entry-index.txt");
+        assertNull(EntryHashIndex.read(file, OPTIONS, output));
+
+        Files.writeString(file, "", StandardCharsets.UTF_8);
+        assertNull(EntryHashIndex.read(file, OPTIONS, output));
+
+        final Path valid = write(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+        Files.writeString(valid, Files.readString(valid, StandardCharsets.UTF_8) + "a/Bar.java\tbase\n", StandardCharsets.UTF_8);
+        assertNull(EntryHashIndex.read(valid, OPTIONS, output));
+    }
+
+    @Test
+    public void addedEntryHasNoResult() throws IOException {
+        final Path output = writeOutput("patches");
+        final EntryHashIndex read = roundTrip(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+
+        assertNull(read.get("a/Bar.java"));
+    }
+
+    @Test
+    public void changedEntryIsNotAResultOfItsNewInputs() throws IOException {
+        final Path output = writeOutput("patches");
+        final EntryHashIndex read = roundTrip(indexOf("a/Foo.java", "base", "change", "a/Foo.java.patch"), output);
+
+        assertFalse(read.get("a/Foo.java").isResultOf("base", "changed-again"));
+        assertFalse(read.get("a/Foo.java").isResultOf("changed-base", "change"));
+        assertFalse(read.get("a/Foo.java").isResultOf("base", EntryHashIndex.MISSING));
+        assertFalse(read.get("a/Foo.java").isResultOf(EntryHashIndex.MISSING, "change"));
+    }
+
+    @Test
+    public void removedEntryIsNoLongerIndexed() throws IOException {
+        final Path output = writeOutput("patches");
+        final EntryHashIndex index = indexOf("a/Foo.java", "base", "change", "patched");
+        index.put("a/Bar.java", new EntryHashIndex.Entry("base", "change", "patched"));
+        index.remove("a/Foo.java");
+
+        final EntryHashIndex read = roundTrip(index, output);
+        assertNull(read.get("a/Foo.java"));
+        assertNotNull(read.get("a/Bar.java"));
+    }
+
+    @Test
+    public void entryWithoutResultIsKept() throws IOException {
+        final Path output = writeOutput("patches");
+        final EntryHashIndex read = roundTrip(indexOf("a/Foo.java", "base", "change", EntryHashIndex.MISSING), output);
+
+        assertTrue(read.get("a/Foo.java").isResultOf("base", "change"));
+        assertEquals(EntryHashIndex.MISSING, read.get("a/Foo.java").getResult());
+    }
+
+    private EntryHashIndex roundTrip(final EntryHashIndex index, final Path output) throws IOException {
+        final EntryHashIndex read = EntryHashIndex.read(write(index, output), OPTIONS, output);
+        assertNotNull(read);
+        return read;
+    }
+
+    private Path write(final EntryHashIndex index, final Path output) throws IOException {
+        final Path file = directory.resolve("entry-index.txt");
+        index.setOutputHash(HashFunction.SHA1.hash(output));
+        index.write(file);
+        return file;
+    }
+
+    private Path writeOutput(final String content) throws IOException {
+        return Files.writeString(directory.resolve("output.zip"), content, StandardCharsets.UTF_8);
+    }
+
+    private static EntryHashIndex indexOf(final String entry, final String baseHash, final String changeHash, final String result) {
+        final EntryHashIndex index = new EntryHashIndex(OPTIONS);
+        index.put(entry, new EntryHashIndex.Entry(baseHash, changeHash, result));
+        return index;
+    }
+}
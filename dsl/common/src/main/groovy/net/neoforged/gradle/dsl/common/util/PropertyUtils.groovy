@@ -350,6 +350,30 @@ class PropertyUtils {
         serialize(property, object, key, value -> context.serialize(value))
     }
 
+    static <T> void serializeList(final ListProperty<T> property, final Collection<T> additional, JsonObject object, String key, JsonSerializationContext context) {
+        final List<T> values = new ArrayList<T>()
+        if (property.isPresent()) {
+            values.addAll(property.get())
+        }
+        values.addAll(additional)
+
+        if (!values.isEmpty()) {
+            object.add(key, context.serialize(values))
+        }
+    }
+
+    static <T> void serializeSet(final SetProperty<T> property, final Collection<T> additional, JsonObject object, String key, JsonSerializationContext context) {
+        final Set<T> values = new LinkedHashSet<T>()
+        if (property.isPresent()) {
+            values.addAll(property.get())
+        }
+        values.addAll(additional)
+
+        if (!values.isEmpty()) {
+            object.add(key, context.serialize(values))
+        }
+    }
+
     static <K, V> void serializeMap(final MapProperty<K, V> property, JsonObject object, String key, Function<K, String> keyWriter, Function<V, JsonElement> valueWriter) {
         serialize(
                 property,
@@ -53,9 +53,21 @@ import static net.neoforged.gradle.dsl.common.util.PropertyUtils.serializeString
 abstract class InstallerProfile implements ConfigurableDSLElement<InstallerProfile> {
 
     static Gson createGson(ObjectFactory factory) {
+        return createGson(factory, Collections.<Library>emptyList())
+    }
+
+    /**
+     * Creates a gson which writes profiles with the given libraries added to their libraries.
+     * This allows writing a profile together with collected libraries, without copying the profile first.
+     *
+     * @param factory The object factory used to create deserialized instances.
+     * @param additionalLibraries The libraries to add.
+     * @return The gson instance.
+     */
+    static Gson createGson(ObjectFactory factory, Collection<Library> additionalLibraries) {
         return new Gson().newBuilder()
                 .disableHtmlEscaping()
-                .registerTypeHierarchyAdapter(InstallerProfile.class, new Serializer(factory))
+                .registerTypeHierarchyAdapter(InstallerProfile.class, new Serializer(factory, additionalLibraries))
                 .registerTypeHierarchyAdapter(Processor.class, new Processor.Serializer(factory))
                 .registerTypeHierarchyAdapter(DataFile.class, new DataFile.Serializer(factory))
                 .registerTypeHierarchyAdapter(Library.class, new Library.Serializer(factory))
@@ -263,9 +275,15 @@ abstract class InstallerProfile implements ConfigurableDSLElement<InstallerProfi
     static class Serializer implements JsonSerializer<InstallerProfile>, JsonDeserializer<InstallerProfile> {
 
         private final ObjectFactory factory
+        private final Collection<Library> additionalLibraries
 
         Serializer(ObjectFactory factory) {
+            this(factory, Collections.<Library>emptyList())
+        }
+
+        Serializer(ObjectFactory factory, Collection<Library> additionalLibraries) {
             this.factory = factory
+            this.additionalLibraries = additionalLibraries
         }
 
         @Override
@@ -317,7 +335,7 @@ abstract class InstallerProfile implements ConfigurableDSLElement<InstallerProfi
             serializeBool(installerProfile.getShouldHideExtract(), object, "hideExtract")
             serializeMap(installerProfile.getData(), object, "data", jsonSerializationContext)
             serializeList(installerProfile.getProcessors(), object, "processors", jsonSerializationContext)
-            serializeSet(installerProfile.getLibraries(), object, "libraries", jsonSerializationContext)
+            serializeSet(installerProfile.getLibraries(), additionalLibraries, object, "libraries", jsonSerializationContext)
             serializeString(installerProfile.getServerJarPath(), object, "serverJarPath")
 
             return object
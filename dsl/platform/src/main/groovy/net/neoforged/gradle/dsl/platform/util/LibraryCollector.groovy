@@ -4,6 +4,7 @@ import groovy.transform.CompileStatic
 import net.neoforged.gradle.dsl.platform.model.Artifact
 import net.neoforged.gradle.dsl.platform.model.Library
 import net.neoforged.gradle.dsl.platform.model.LibraryDownload
+import net.neoforged.gradle.util.FileHashCache
 import net.neoforged.gradle.util.HashFunction
 import org.apache.commons.io.FilenameUtils
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier
@@ -46,10 +47,17 @@ class LibraryCollector extends ModuleIdentificationVisitor {
 
     private final HttpClient httpClient = HttpClient.newBuilder().build();
     private final Logger logger
+    @Nullable
+    private final FileHashCache hashCache
 
     LibraryCollector(ObjectFactory objectFactory, List<URI> repoUrl, Logger logger) {
+        this(objectFactory, repoUrl, logger, null)
+    }
+
+    LibraryCollector(ObjectFactory objectFactory, List<URI> repoUrl, Logger logger, @Nullable FileHashCache hashCache) {
         super(objectFactory);
         this.logger = logger
+        this.hashCache = hashCache
         this.objectFactory = objectFactory;
         this.repositoryUrls = new ArrayList<>(repoUrl)
 
@@ -126,7 +134,7 @@ class LibraryCollector extends ModuleIdentificationVisitor {
         library.getName().set(name);
         try {
             artifact.getPath().set(path);
-            artifact.getSha1().set(HashFunction.SHA1.hash(file));
+            artifact.getSha1().set(HashFunction.SHA1.hash(file, hashCache));
             artifact.getSize().set(Files.size(file.toPath()));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
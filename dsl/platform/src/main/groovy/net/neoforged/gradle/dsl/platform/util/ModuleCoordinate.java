@@ -0,0 +1,103 @@
+package net.neoforged.gradle.dsl.platform.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The maven coordinate of a module artifact, inferred from the location of the artifact in a local cache.
+ */
+public final class ModuleCoordinate {
+
+    // The following regex detects file path patterns, in gradle cache format. Like:  /net.neoforged.fancymodloader/earlydisplay/47.1.47/46509b19504a71e25b115383e900aade5088598a/earlydisplay-47.1.47.jar
+    private static final Pattern GRADLE_CACHE_PATTERN = Pattern.compile("/(?<group>[^/]+)/(?<module>[^/]+)/(?<version>[^/]+)/(?<hash>[a-z0-9]+)/\\k<module>-\\k<version>(-(?<classifier>[^/]+))?\\.(?<extension>(jar)|(zip))$");
+
+    // The following regex detects file path patterns, in maven local cache format. Like:  /.m2/repository/com/google/code/findbugs/jsr305/3.0.2/jsr305-3.0.2.jar
+    private static final Pattern MAVEN_LOCAL_PATTERN = Pattern.compile("/.m2/repository/(?<group>.+)/(?<module>[^/]+)/(?<version>[^/]+)/\\k<module>-\\k<version>(-(?<classifier>[^/]+))?\\.(?<extension>(jar)|(zip))$");
+
+    private final String group;
+    private final String module;
+    private final String version;
+    private final String classifier;
+    private final String extension;
+
+    public ModuleCoordinate(String group, String module, String version, String classifier, String extension) {
+        this.group = group;
+        this.module = module;
+        this.version = version;
+        this.classifier = classifier;
+        this.extension = extension;
+    }
+
+    /**
+     * Determines the coordinate of the given file, based on its location in either the gradle or the maven local cache.
+     *
+     * @param file The file to identify.
+     * @return The coordinate of the file.
+     * @throws IllegalStateException If the file is in neither of the known caches.
+     */
+    @NotNull
+    public static ModuleCoordinate identify(final File file) {
+        final String absolutePath = file.getAbsolutePath().replace("\\", "/");
+
+        Matcher matcher = GRADLE_CACHE_PATTERN.matcher(absolutePath);
+        if (!matcher.find()) {
+            matcher = MAVEN_LOCAL_PATTERN.matcher(absolutePath);
+            if (!matcher.find()) {
+                throw new IllegalStateException("Cannot determine the GAV of " + file + ", since it is neither a remote nor a Maven local dependency!");
+            }
+        }
+
+        return new ModuleCoordinate(
+                matcher.group("group").replace("/", "."), //In case we match the maven way.
+                matcher.group("module"),
+                matcher.group("version"),
+                matcher.group("classifier") == null ? "" : matcher.group("classifier"),
+                matcher.group("extension")
+        );
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The classifier of the artifact, or an empty string if it has none.
+     */
+    public String getClassifier() {
+        return classifier;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ModuleCoordinate that = (ModuleCoordinate) o;
+        return group.equals(that.group) && module.equals(that.module) && version.equals(that.version) && classifier.equals(that.classifier) && extension.equals(that.extension);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(group, module, version, classifier, extension);
+    }
+
+    @Override
+    public String toString() {
+        return group + ":" + module + ":" + version + (classifier.isEmpty() ? "" : ":" + classifier) + "@" + extension;
+    }
+}
@@ -35,8 +35,22 @@ abstract class UserdevProfile implements ConfigurableDSLElement<UserdevProfile>
     }
 
     static Gson createGson(ObjectFactory objectFactory) {
+        return createGson(objectFactory, Collections.<String>emptyList(), Collections.<String>emptyList(), Collections.<String>emptyList())
+    }
+
+    /**
+     * Creates a gson which writes profiles with the given coordinates appended to their libraries, test libraries and modules.
+     * This allows writing a profile together with collected coordinates, without copying the profile first.
+     *
+     * @param objectFactory The object factory used to create deserialized instances.
+     * @param additionalLibraries The library coordinates to append.
+     * @param additionalTestLibraries The test library coordinates to append.
+     * @param additionalModules The module coordinates to append.
+     * @return The gson instance.
+     */
+    static Gson createGson(ObjectFactory objectFactory, Collection<String> additionalLibraries, Collection<String> additionalTestLibraries, Collection<String> additionalModules) {
         return new GsonBuilder().disableHtmlEscaping()
-                .registerTypeHierarchyAdapter(UserdevProfile.class, new Serializer(objectFactory))
+                .registerTypeHierarchyAdapter(UserdevProfile.class, new Serializer(objectFactory, additionalLibraries, additionalTestLibraries, additionalModules))
                 .registerTypeAdapter(RunType.class, new RunType.Serializer(objectFactory))
                 .registerTypeHierarchyAdapter(ToolExecution.class, new ToolExecution.Serializer(objectFactory))
                 .create()
@@ -115,13 +129,53 @@ abstract class UserdevProfile implements ConfigurableDSLElement<UserdevProfile>
     @Optional
     abstract ListProperty<String> getModules();
 
+    /**
+     * Copies this profile into the given other profile, without going through its json representation.
+     * The properties of the other profile are wired to the values of this profile, so changes to the other profile
+     * (like adding additional libraries) do not leak back into this profile.
+     *
+     * @param other The other profile to copy into.
+     */
+    void copyTo(UserdevProfile other) {
+        other.getNeoForm().set(getNeoForm())
+        other.getAccessTransformerDirectory().set(getAccessTransformerDirectory())
+        other.getBinaryPatchFile().set(getBinaryPatchFile())
+        if (getBinaryPatcher().isPresent()) {
+            final ToolExecution binaryPatcher = factory.newInstance(ToolExecution.class)
+            getBinaryPatcher().get().copyTo(binaryPatcher)
+            other.getBinaryPatcher().set(binaryPatcher)
+        }
+        other.getSourcePatchesDirectory().set(getSourcePatchesDirectory())
+        other.getSourcesJarArtifactCoordinate().set(getSourcesJarArtifactCoordinate())
+        other.getUniversalJarArtifactCoordinate().set(getUniversalJarArtifactCoordinate())
+        other.getAdditionalDependencyArtifactCoordinates().set(getAdditionalDependencyArtifactCoordinates())
+        other.getAdditionalTestDependencyArtifactCoordinates().set(getAdditionalTestDependencyArtifactCoordinates())
+        other.getInjectedFilesDirectory().set(getInjectedFilesDirectory())
+        getRunTypes().forEach { RunType runType ->
+            final RunType copy = factory.newInstance(RunType.class, runType.getName())
+            runType.copyTo(copy)
+            other.getRunTypes().add(copy)
+        }
+        other.getModules().set(getModules())
+    }
+
     @CompileStatic
     static class Serializer implements JsonSerializer<UserdevProfile>, JsonDeserializer<UserdevProfile> {
 
         private final ObjectFactory objectFactory;
+        private final Collection<String> additionalLibraries
+        private final Collection<String> additionalTestLibraries
+        private final Collection<String> additionalModules
 
         Serializer(ObjectFactory objectFactory) {
+            this(objectFactory, Collections.<String>emptyList(), Collections.<String>emptyList(), Collections.<String>emptyList())
+        }
+
+        Serializer(ObjectFactory objectFactory, Collection<String> additionalLibraries, Collection<String> additionalTestLibraries, Collection<String> additionalModules) {
             this.objectFactory = objectFactory
+            this.additionalLibraries = additionalLibraries
+            this.additionalTestLibraries = additionalTestLibraries
+            this.additionalModules = additionalModules
         }
 
         @Override
@@ -175,8 +229,8 @@ abstract class UserdevProfile implements ConfigurableDSLElement<UserdevProfile>
             serializeString(userdevProfile.sourcePatchesDirectory, object, "patches")
             serializeString(userdevProfile.sourcesJarArtifactCoordinate, object, "sources")
             serializeString(userdevProfile.universalJarArtifactCoordinate, object, "universal")
-            serializeList(userdevProfile.additionalDependencyArtifactCoordinates, object, "libraries", jsonSerializationContext)
-            serializeList(userdevProfile.additionalTestDependencyArtifactCoordinates, object, "testLibraries", jsonSerializationContext)
+            serializeList(userdevProfile.additionalDependencyArtifactCoordinates, additionalLibraries, object, "libraries", jsonSerializationContext)
+            serializeList(userdevProfile.additionalTestDependencyArtifactCoordinates, additionalTestLibraries, object, "testLibraries", jsonSerializationContext)
             serializeString(userdevProfile.injectedFilesDirectory, object, "inject")
             serializeNamedDomainCollection(userdevProfile.runTypes, object, "runs", new Function<RunType, JsonElement>() {
                 @Override
@@ -184,7 +238,7 @@ abstract class UserdevProfile implements ConfigurableDSLElement<UserdevProfile>
                     return RunType.Serializer.serializedNamed(v, jsonSerializationContext)
                 }
             })
-            serializeList(userdevProfile.modules, object, "modules", jsonSerializationContext)
+            serializeList(userdevProfile.modules, additionalModules, object, "modules", jsonSerializationContext)
 
             return object
         }
@@ -213,6 +267,18 @@ abstract class UserdevProfile implements ConfigurableDSLElement<UserdevProfile>
         @Optional
         abstract MapProperty<String, String> getData();
 
+        /**
+         * Copies this tool execution into the given other tool execution.
+         *
+         * @param other The other tool execution to copy into.
+         */
+        void copyTo(ToolExecution other) {
+            other.getTool().set(getTool())
+            other.getArguments().set(getArguments())
+            other.getJvmArguments().set(getJvmArguments())
+            other.getData().set(getData())
+        }
+
         @CompileStatic
         static class Serializer implements JsonSerializer<ToolExecution>, JsonDeserializer<ToolExecution> {
 
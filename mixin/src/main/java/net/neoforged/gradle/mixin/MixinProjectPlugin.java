@@ -6,10 +6,11 @@ import net.neoforged.gradle.dsl.common.runs.run.RunManager;
 import net.neoforged.gradle.dsl.mixin.extension.Mixin;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
-import org.gradle.api.provider.ListProperty;
 import org.gradle.api.tasks.bundling.Jar;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public class MixinProjectPlugin implements Plugin<Project> {
@@ -23,49 +24,41 @@ public class MixinProjectPlugin implements Plugin<Project> {
         }
         this.extension = project.getExtensions().create(Mixin.class, Mixin.EXTENSION_NAME, MixinExtension.class, project);
         
+        // Both are lazy: only jar tasks and runs which are realized get an extension, and nothing is resolved before it is needed.
         project.getTasks().withType(Jar.class).configureEach(this::setupJarTask);
         
         project.getExtensions().configure(
                 RunManager.class,
                 runs -> runs.configureAll(MixinProjectPlugin.this::setupRun)
         );
-        
-        project.afterEvaluate(p -> {
-            p.getTasks().withType(Jar.class).all(this::configureJarTask);
-            p.getExtensions().configure(
-                    RunManager.class,
-                    runs -> runs.configureAll(MixinProjectPlugin.this::configureRun)
-            );
-        });
     }
     
     private void setupJarTask(Jar jarTask) {
-        jarTask.getExtensions().create(Mixin.EXTENSION_NAME, MixinExtension.class, jarTask.getProject());
-    }
-
-    private void configureJarTask(Jar jar) {
-        jar.getManifest().getAttributes().computeIfAbsent("MixinConfigs", $ -> {
-            final Set<String> configs = new HashSet<>(this.extension.getConfigs().get());
-            configs.addAll(jar.getExtensions().getByType(MixinExtension.class).getConfigs().get());
+        final MixinExtension jarExtension = jarTask.getExtensions().create(Mixin.EXTENSION_NAME, MixinExtension.class, jarTask.getProject());
+        
+        // A value configured directly on the manifest takes precedence.
+        jarTask.getManifest().getAttributes().putIfAbsent("MixinConfigs", this.extension.getConfigs().zip(jarExtension.getConfigs(), (projectConfigs, jarConfigs) -> {
+            final Set<String> configs = new LinkedHashSet<>(projectConfigs);
+            configs.addAll(jarConfigs);
             
             return String.join(",", configs);
-        });
+        }));
     }
     
     private void setupRun(Run run) {
-        run.getExtensions().create(Mixin.EXTENSION_NAME, MixinExtension.class, run.getProject());
-    }
-    
-    private void configureRun(Run run) {
-        final ListProperty<String> programArguments = run.getArguments();
-        
-        for (String config : this.extension.getConfigs().get()) {
-            programArguments.addAll("--fml.mixin", config);
-        }
+        final MixinExtension runExtension = run.getExtensions().create(Mixin.EXTENSION_NAME, MixinExtension.class, run.getProject());
         
-        final MixinExtension runExtension = run.getExtensions().getByType(MixinExtension.class);
-        for(String config : runExtension.getConfigs().get()) {
-            programArguments.addAll("--fml.mixin", config);
-        }
+        run.getArguments().addAll(this.extension.getConfigs().zip(runExtension.getConfigs(), (projectConfigs, runConfigs) -> {
+            final List<String> arguments = new ArrayList<>();
+            for (String config : projectConfigs) {
+                arguments.add("--fml.mixin");
+                arguments.add(config);
+            }
+            for (String config : runConfigs) {
+                arguments.add("--fml.mixin");
+                arguments.add(config);
+            }
+            return arguments;
+        }));
     }
 }
@@ -1,20 +1,20 @@
 package net.neoforged.gradle.neoform.runtime.tasks;
 
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.util.FileMaterializationUtils;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 
 @CacheableTask
 public abstract class Download extends DefaultRuntime {
 
     @TaskAction
     public void doDownload() throws IOException {
-        final File output = ensureFileWorkspaceReady(getOutput());
-        Files.copy(getInput().getFiles().iterator().next().toPath(), output.toPath());
+        final File output = getOutput().get().getAsFile();
+        FileMaterializationUtils.materialize(getInput().getFiles().iterator().next(), output);
     }
     
     @InputFiles
@@ -1,5 +1,6 @@
 package net.neoforged.gradle.neoform.runtime.tasks;
 
+import net.neoforged.gradle.common.util.ZipEntryFileTreeElement;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.RegularFileProperty;
@@ -1,13 +1,11 @@
 package net.neoforged.gradle.neoform.runtime.tasks;
 
-import io.codechicken.diffpatch.cli.CliOperation;
-import io.codechicken.diffpatch.cli.PatchOperation;
-import io.codechicken.diffpatch.util.Input.MultiInput;
-import io.codechicken.diffpatch.util.Output.MultiOutput;
 import io.codechicken.diffpatch.util.PatchMode;
 import net.neoforged.gradle.common.services.caching.CachedExecutionService;
 import net.neoforged.gradle.common.services.caching.jobs.ICacheableJob;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.util.DiffPatchUtils;
 import org.gradle.api.file.*;
 import org.gradle.api.provider.Property;
 import org.gradle.api.services.ServiceReference;
@@ -25,6 +23,7 @@ public abstract class Patch extends DefaultRuntime {
 
         getRejectsFile().fileProvider(getFileInOutputDirectory("rejects.zip"));
         getIsVerbose().convention(false);
+        getParallelism().convention(Runtime.getRuntime().availableProcessors());
     }
 
 
@@ -62,26 +61,34 @@ public abstract class Patch extends DefaultRuntime {
             throw new RuntimeException("Patch directory not found.");
         }
 
-        PatchOperation.Builder builder = PatchOperation.builder()
-                .logTo(getLogger()::lifecycle)
-                .baseInput(MultiInput.detectedArchive(input.toPath()))
-                .patchesInput(MultiInput.folder(patchArchiveLocator.directory.toPath()))
-                .patchedOutput(MultiOutput.detectedArchive(output.toPath()))
-                .rejectsOutput(MultiOutput.detectedArchive(rejects.toPath()))
-                .level(getIsVerbose().get() ? io.codechicken.diffpatch.util.LogLevel.ALL : io.codechicken.diffpatch.util.LogLevel.WARN)
-                .mode(PatchMode.OFFSET);
-
-        if (getPatchesModifiedPrefix().isPresent()) {
-            builder = builder.bPrefix(getPatchesModifiedPrefix().get());
-        }
-
-        if (getPatchesOriginalPrefix().isPresent()) {
-            builder = builder.aPrefix(getPatchesOriginalPrefix().get());
-        }
-
-        CliOperation.Result<PatchOperation.PatchesSummary> result = builder.build().operate();
-
-        boolean success = result.exit == 0;
+        final int exit = DiffPatchUtils.patch(
+                input.toPath(),
+                patchArchiveLocator.directory.toPath(),
+                "",
+                output.toPath(),
+                rejects.toPath(),
+                true,
+                getTemporaryDir().toPath(),
+                getParallelism().get(),
+                getParallelExecution().get().getExecutor(),
+                builder -> {
+                    builder.logTo(getLogger()::lifecycle)
+                            .level(getIsVerbose().get() ? io.codechicken.diffpatch.util.LogLevel.ALL : io.codechicken.diffpatch.util.LogLevel.WARN)
+                            .mode(PatchMode.OFFSET);
+
+                    if (getPatchesModifiedPrefix().isPresent()) {
+                        builder = builder.bPrefix(getPatchesModifiedPrefix().get());
+                    }
+
+                    if (getPatchesOriginalPrefix().isPresent()) {
+                        builder = builder.aPrefix(getPatchesOriginalPrefix().get());
+                    }
+
+                    return builder;
+                }
+        );
+
+        boolean success = exit == 0;
         if (!success) {
             getProject().getLogger().error("Rejects saved to: {}", rejects);
             throw new RuntimeException("Patch failure.");
@@ -114,6 +121,15 @@ public abstract class Patch extends DefaultRuntime {
     @Optional
     public abstract Property<String> getPatchesModifiedPrefix();
 
+    /**
+     * The maximal amount of patch shards which are applied concurrently, this does not influence the output.
+     */
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    @ServiceReference(ParallelExecutionService.NAME)
+    public abstract Property<ParallelExecutionService> getParallelExecution();
+
     private static final class ExtractingAndRootCollectingVisitor implements FileVisitor {
 
         private final String filter;
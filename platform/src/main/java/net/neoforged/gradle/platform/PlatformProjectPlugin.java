@@ -6,6 +6,8 @@ import net.neoforged.gradle.dsl.common.runs.ide.extensions.IdeaRunExtension;
 import net.neoforged.gradle.dsl.common.runs.run.Run;
 import net.neoforged.gradle.dsl.common.runs.run.RunManager;
 import net.neoforged.gradle.platform.extensions.DynamicProjectExtension;
+import net.neoforged.gradle.platform.services.ArtifactCoordinateIndexService;
+import net.neoforged.gradle.platform.services.ClassIndexService;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.JavaPluginExtension;
@@ -17,6 +19,8 @@ public class PlatformProjectPlugin implements Plugin<Project> {
     @Override
     public void apply(@NotNull Project target) {
         target.getPlugins().apply(CommonPlugin.class);
+        ArtifactCoordinateIndexService.register(target);
+        ClassIndexService.register(target);
         target.getExtensions().create("dynamicProject", DynamicProjectExtension.class, target);
         
         target.getExtensions().configure(RunManager.class, runs -> runs.configureAll(run -> configureRun(target, run)));
@@ -12,16 +12,40 @@ import io.codechicken.diffpatch.util.Output.MultiOutput;
 import io.codechicken.diffpatch.util.PatchMode;
 import io.codechicken.diffpatch.util.archiver.ArchiveFormat;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.util.DiffPatchUtils;
+import net.neoforged.gradle.common.util.EntryHashIndex;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
-import org.apache.commons.io.FileUtils;
-import org.gradle.api.file.Directory;
+import net.neoforged.gradle.util.FileUtils;
+import net.neoforged.gradle.util.HashFunction;
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileType;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 @CacheableTask
 public abstract class ApplyPatches extends DefaultRuntime implements WithWorkspace, WithOutput {
@@ -33,31 +57,191 @@ public abstract class ApplyPatches extends DefaultRuntime implements WithWorkspa
       getShouldFailOnPatchFailure().convention(false);
       getPatchMode().convention(getShouldFailOnPatchFailure().map(fail -> fail ? PatchMode.ACCESS : PatchMode.FUZZY));
       getMinimalFuzzingQuality().convention(0.90f); // The 0.5 default in DiffPatch is too low.
+      getPatchIndex().convention(getOutputDirectory().file("patch-index.txt"));
+      getParallelism().convention(Runtime.getRuntime().availableProcessors());
    }
    
    @TaskAction
-   public void doTask() throws Exception {
+   public void doTask(InputChanges changes) throws Exception {
       if (!getPatches().isPresent()) {
-         FileUtils.copyFile(getBase().getAsFile().get(), getOutput().get().getAsFile());
+         Files.copy(getBase().getAsFile().get().toPath(), getOutput().get().getAsFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
          return;
       }
       
-      Path outputPath = ensureFileWorkspaceReady(getOutput()).toPath();
-
-      final Directory rejectsDir = getRejects().get();
-      Path rejectsPath = rejectsDir.getAsFile().toPath();
-      
-      PatchOperation.Builder builder = PatchOperation.builder()
-                                             .logTo(getLogger()::lifecycle)
-                                             .baseInput(MultiInput.detectedArchive(getBase().get().getAsFile().toPath()))
-                                             .patchesInput(MultiInput.folder(getPatches().get().getAsFile().toPath()))
-                                             .patchedOutput(MultiOutput.detectedArchive(outputPath))
-                                             .rejectsOutput(MultiOutput.folder(rejectsPath))
-                                             .mode(getPatchMode().get())
-                                             .aPrefix(getOriginalPrefix().get())
-                                             .bPrefix(getModifiedPrefix().get())
-                                             .level(getShouldFailOnPatchFailure().get() ? io.codechicken.diffpatch.util.LogLevel.WARN : io.codechicken.diffpatch.util.LogLevel.ALL)
-                                             .patchesPrefix(getPatchesPrefix().get());
+      if (changes.isIncremental() && applyIncrementally(changes)) {
+         return;
+      }
+      
+      applyFully();
+   }
+   
+   private void applyFully() throws IOException {
+      final File output = ensureFileWorkspaceReady(getOutput());
+      
+      //The sharded patch writes a normalized archive (sorted entries, stable timestamps).
+      //Incremental runs write through the same normalization, which keeps their output identical to a full run.
+      final int exit = DiffPatchUtils.patch(
+              getBase().get().getAsFile().toPath(),
+              getPatches().get().getAsFile().toPath(),
+              getPatchesPrefix().get(),
+              output.toPath(),
+              getRejects().get().getAsFile().toPath(),
+              false,
+              getTemporaryDir().toPath(),
+              getParallelism().get(),
+              getParallelExecution().get().getExecutor(),
+              this::configure
+      );
+      checkExitCode(exit);
+      
+      writeFullIndex(output);
+   }
+   
+   /**
+    * Re-applies only the patches which changed since the last run, and splices their results into the previous output.
+    *
+    * @param changes The input changes of this execution.
+    * @return {@code true} if the output was brought up-to-date, {@code false} if a full run is required.
+    */
+   private boolean applyIncrementally(final InputChanges changes) throws IOException {
+      final Path output = getOutput().get().getAsFile().toPath();
+      final Path indexFile = getPatchIndex().get().getAsFile().toPath();
+      final EntryHashIndex index = EntryHashIndex.read(indexFile, indexOptions(), output);
+      if (index == null) {
+         return false;
+      }
+      
+      final Path patchesRoot = getPatches().get().getAsFile().toPath();
+      final Path rejectsPath = getRejects().get().getAsFile().toPath();
+      
+      //Entry name -> relative patch path, and the patches which where removed.
+      final Map<String, String> changedPatches = new TreeMap<>();
+      final Set<String> removedPatches = new HashSet<>();
+      for (FileChange change : changes.getFileChanges(getPatches())) {
+         if (change.getFileType() == FileType.DIRECTORY) {
+            continue;
+         }
+         
+         final String relativePath = patchesRoot.relativize(change.getFile().toPath()).toString().replace('\\', '/');
+         final String entry = toEntryName(relativePath);
+         if (entry == null) {
+            //Not something we can map to an entry, let DiffPatch deal with it.
+            return false;
+         }
+         
+         changedPatches.put(entry, relativePath);
+         if (change.getChangeType() == ChangeType.REMOVED) {
+            removedPatches.add(entry);
+         }
+      }
+      
+      final Path workspace = getTemporaryDir().toPath().resolve("incremental");
+      FileUtils.delete(workspace);
+      final Path stagedBase = Files.createDirectories(workspace.resolve("base"));
+      final Path stagedPatches = Files.createDirectories(workspace.resolve("patches"));
+      final Path stagedOutput = workspace.resolve("patched");
+      
+      final Map<String, DiffPatchUtils.EntrySource> replacements = new HashMap<>();
+      final Set<String> removals = new HashSet<>();
+      final Map<String, EntryHashIndex.Entry> pending = new TreeMap<>();
+      try (ZipFile base = new ZipFile(getBase().get().getAsFile())) {
+         for (Map.Entry<String, String> changed : changedPatches.entrySet()) {
+            final String entry = changed.getKey();
+            final String relativePath = changed.getValue();
+            final ZipEntry baseEntry = base.getEntry(entry);
+            
+            deleteRejects(rejectsPath, relativePath);
+            
+            if (removedPatches.contains(entry)) {
+               //Without a patch the base entry is passed through as is.
+               index.remove(entry);
+               if (baseEntry == null) {
+                  removals.add(entry);
+               } else {
+                  final byte[] data = readAllBytes(base, baseEntry);
+                  replacements.put(entry, () -> new ByteArrayInputStream(data));
+               }
+               continue;
+            }
+            
+            final String baseHash = baseEntry == null ? EntryHashIndex.MISSING : hash(base, baseEntry);
+            final String patchHash = HashFunction.SHA1.hash(patchesRoot.resolve(relativePath));
+            final EntryHashIndex.Entry known = index.get(entry);
+            if (known != null && known.isResultOf(baseHash, patchHash)) {
+               //The patch was touched, but its content did not change.
+               continue;
+            }
+            
+            if (baseEntry != null) {
+               final Path stagedEntry = stagedBase.resolve(entry);
+               Files.createDirectories(stagedEntry.getParent());
+               try (InputStream stream = base.getInputStream(baseEntry)) {
+                  Files.copy(stream, stagedEntry);
+               }
+            }
+            
+            final Path stagedPatch = stagedPatches.resolve(relativePath);
+            Files.createDirectories(stagedPatch.getParent());
+            Files.copy(patchesRoot.resolve(relativePath), stagedPatch);
+            
+            pending.put(entry, new EntryHashIndex.Entry(baseHash, patchHash, EntryHashIndex.MISSING));
+         }
+      }
+      
+      if (!pending.isEmpty()) {
+         getLogger().info("Re-applying {} changed patches", pending.size());
+         final CliOperation.Result<PatchOperation.PatchesSummary> result = configure(PatchOperation.builder())
+                 .baseInput(MultiInput.folder(stagedBase))
+                 .patchesInput(MultiInput.folder(stagedPatches))
+                 .patchedOutput(MultiOutput.folder(stagedOutput))
+                 .rejectsOutput(MultiOutput.folder(rejectsPath))
+                 .build()
+                 .operate();
+         checkExitCode(result.exit);
+         
+         for (Map.Entry<String, EntryHashIndex.Entry> result : pending.entrySet()) {
+            final String entry = result.getKey();
+            final Path patched = stagedOutput.resolve(entry);
+            final String patchedHash;
+            if (Files.isRegularFile(patched)) {
+               replacements.put(entry, () -> Files.newInputStream(patched));
+               patchedHash = HashFunction.SHA1.hash(patched);
+            } else {
+               removals.add(entry);
+               patchedHash = EntryHashIndex.MISSING;
+            }
+            index.put(entry, new EntryHashIndex.Entry(result.getValue().getBaseHash(), result.getValue().getChangeHash(), patchedHash));
+         }
+      }
+      
+      if (!replacements.isEmpty() || !removals.isEmpty()) {
+         final Path spliced = FileUtils.temporaryPath(output.getParent(), "spliced");
+         try (ZipFile previous = new ZipFile(output.toFile())) {
+            final Map<String, DiffPatchUtils.EntrySource> entries = new TreeMap<>();
+            previous.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .filter(entry -> !removals.contains(entry.getName()))
+                    .forEach(entry -> entries.put(entry.getName(), () -> previous.getInputStream(entry)));
+            entries.putAll(replacements);
+            DiffPatchUtils.writeArchive(spliced, entries);
+         }
+         FileUtils.atomicMove(spliced, output);
+      }
+      
+      FileUtils.delete(workspace);
+      
+      index.setOutputHash(HashFunction.SHA1.hash(output));
+      index.write(indexFile);
+      return true;
+   }
+   
+   private PatchOperation.Builder configure(final PatchOperation.Builder builder) {
+      builder.logTo(getLogger()::lifecycle)
+              .mode(getPatchMode().get())
+              .aPrefix(getOriginalPrefix().get())
+              .bPrefix(getModifiedPrefix().get())
+              .level(getShouldFailOnPatchFailure().get() ? io.codechicken.diffpatch.util.LogLevel.WARN : io.codechicken.diffpatch.util.LogLevel.ALL)
+              .patchesPrefix(getPatchesPrefix().get());
 
       builder.minFuzz(getMinimalFuzzingQuality().get());
 
@@ -65,9 +249,10 @@ public abstract class ApplyPatches extends DefaultRuntime implements WithWorkspa
          builder.maxOffset(getMaximalFuzzingOffset().get());
       }
       
-      CliOperation.Result<PatchOperation.PatchesSummary> result = builder.build().operate();
-      
-      int exit = result.exit;
+      return builder;
+   }
+   
+   private void checkExitCode(final int exit) {
       if (exit != 0 && exit != 1) {
          throw new RuntimeException("DiffPatch failed with exit code: " + exit);
       }
@@ -76,13 +261,94 @@ public abstract class ApplyPatches extends DefaultRuntime implements WithWorkspa
       }
    }
    
+   private void writeFullIndex(final File output) throws IOException {
+      final Path indexFile = getPatchIndex().get().getAsFile().toPath();
+      final Path patchesRoot = getPatches().get().getAsFile().toPath();
+      
+      final EntryHashIndex index = new EntryHashIndex(indexOptions());
+      try (ZipFile base = new ZipFile(getBase().get().getAsFile());
+           ZipFile patched = new ZipFile(output);
+           Stream<Path> patches = Files.walk(patchesRoot)) {
+         for (Path patch : (Iterable<Path>) patches.filter(Files::isRegularFile)::iterator) {
+            final String entry = toEntryName(patchesRoot.relativize(patch).toString().replace('\\', '/'));
+            if (entry == null) {
+               continue;
+            }
+            
+            index.put(entry, new EntryHashIndex.Entry(hash(base, base.getEntry(entry)), HashFunction.SHA1.hash(patch), hash(patched, patched.getEntry(entry))));
+         }
+      } catch (IOException e) {
+         //Without an index the next run is simply a full run again.
+         getLogger().debug("Failed to index the applied patches", e);
+         Files.deleteIfExists(indexFile);
+         return;
+      }
+      
+      index.setOutputHash(HashFunction.SHA1.hash(output));
+      index.write(indexFile);
+   }
+   
+   /**
+    * Converts the relative path of a patch file to the name of the entry it patches.
+    *
+    * @return The entry name, or {@code null} if the file is not a patch which applies to an entry.
+    */
+   @Nullable
+   private String toEntryName(final String relativePatchPath) {
+      final String prefix = getPatchesPrefix().get();
+      if (!relativePatchPath.startsWith(prefix) || !relativePatchPath.endsWith(".patch")) {
+         return null;
+      }
+      
+      String entry = relativePatchPath.substring(prefix.length(), relativePatchPath.length() - ".patch".length());
+      if (entry.startsWith("/")) {
+         entry = entry.substring(1);
+      }
+      return entry.isEmpty() ? null : entry;
+   }
+   
+   /**
+    * @return The fingerprint of the options which influence the patched output, the index is only reused when they match.
+    */
+   String indexOptions() {
+      return String.join("\n",
+              String.valueOf(getPatchMode().getOrNull()),
+              String.valueOf(getPatchesPrefix().getOrNull()),
+              String.valueOf(getOriginalPrefix().getOrNull()),
+              String.valueOf(getModifiedPrefix().getOrNull()),
+              String.valueOf(getMinimalFuzzingQuality().getOrNull()),
+              String.valueOf(getMaximalFuzzingOffset().getOrNull()));
+   }
+   
+   private static void deleteRejects(final Path rejectsPath, final String relativePatchPath) throws IOException {
+      Files.deleteIfExists(rejectsPath.resolve(relativePatchPath));
+      Files.deleteIfExists(rejectsPath.resolve(relativePatchPath + ".rej"));
+   }
+   
+   private static String hash(final ZipFile zip, @Nullable final ZipEntry entry) throws IOException {
+      if (entry == null) {
+         return EntryHashIndex.MISSING;
+      }
+      
+      try (InputStream stream = zip.getInputStream(entry)) {
+         return HashFunction.SHA1.hash(stream);
+      }
+   }
+   
+   private static byte[] readAllBytes(final ZipFile zip, final ZipEntry entry) throws IOException {
+      try (InputStream stream = zip.getInputStream(entry)) {
+         return stream.readAllBytes();
+      }
+   }
+   
    // TODO: split into separate (exclusive) properties for directory or file?
    @InputFile
    @PathSensitive(PathSensitivity.NONE)
    public abstract RegularFileProperty getBase();
    
    @InputDirectory
-   @PathSensitive(PathSensitivity.NONE)
+   @Incremental
+   @PathSensitive(PathSensitivity.RELATIVE)
    public abstract DirectoryProperty getPatches();
    
    @OutputDirectory
@@ -120,4 +386,19 @@ public abstract class ApplyPatches extends DefaultRuntime implements WithWorkspa
    @Input
    @Optional
    public abstract Property<Boolean> getShouldFailOnPatchFailure();
+   
+   /**
+    * The maximal amount of patch shards which are applied concurrently, this does not influence the output.
+    */
+   @Internal
+   public abstract Property<Integer> getParallelism();
+
+   @ServiceReference(ParallelExecutionService.NAME)
+   public abstract Property<ParallelExecutionService> getParallelExecution();
+   
+   /**
+    * The index of the results of the last run, used to only re-apply the patches which changed.
+    */
+   @LocalState
+   public abstract RegularFileProperty getPatchIndex();
 }
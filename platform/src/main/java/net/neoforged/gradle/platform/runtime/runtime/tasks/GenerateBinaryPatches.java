@@ -5,33 +5,110 @@
 
 package net.neoforged.gradle.platform.runtime.runtime.tasks;
 
-import net.neoforged.gradle.common.runtime.tasks.DefaultExecute;
-import net.neoforged.gradle.common.util.ToolUtilities;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
-import net.neoforged.gradle.dsl.common.util.Constants;
 import net.neoforged.gradle.dsl.common.util.DistributionType;
+import net.neoforged.gradle.platform.runtime.runtime.tasks.action.GenerateBinaryPatchesAction;
+import net.neoforged.gradle.platform.services.ClassIndexService;
+import net.neoforged.gradle.platform.util.BinaryPatchGenerator;
+import net.neoforged.gradle.util.FileUtils;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
 
-public abstract class GenerateBinaryPatches extends DefaultExecute implements WithOutput, WithWorkspace {
+import javax.inject.Inject;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public abstract class GenerateBinaryPatches extends DefaultRuntime implements WithOutput, WithWorkspace {
     public GenerateBinaryPatches() {
-        getExecutingJar().set(ToolUtilities.resolveTool(getProject(), Constants.BINPATCHER));
-        getProgramArguments().addAll("--clean", "{clean}", "--create", "{dirty}", "--output", "{output}",
-                "--patches", "{patches}", "--srg", "{srg}");
-        
         getDistributionType().convention(DistributionType.JOINED);
         getOutputFileName().convention("output.lzma");
-        
-        getArguments().putRegularFile("clean", getClean());
-        getArguments().putRegularFile("dirty", getPatched());
-        getArguments().putRegularFile("srg", getMappings());
-        
-        getMultiArguments().putFiles("patches", getPatches());
+        getParallelism().convention(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TaskAction
+    public void doTask() throws Exception {
+        final File output = ensureFileWorkspaceReady(getOutput());
+
+        final List<String> patchFiles = new ArrayList<>();
+        getPatches().getAsFileTree().visit(details -> {
+            if (!details.isDirectory()) {
+                patchFiles.add(details.getRelativePath().getPathString());
+            }
+        });
+
+        final ClassIndexService.ClassIndex clean = getClassIndex().get().get(getClean().get().getAsFile());
+        final ClassIndexService.ClassIndex patched = getClassIndex().get().get(getPatched().get().getAsFile());
+        final IMappingFile mappings = IMappingFile.load(getMappings().get().getAsFile());
+        final Set<String> outers = new BinaryPatchGenerator(clean, patched, mappings)
+                .collectOuterClasses(BinaryPatchGenerator.collectPatchedClasses(patchFiles));
+
+        final List<List<String>> shards = new ArrayList<>();
+        final int shardCount = Math.max(1, Math.min(getParallelism().get(), outers.size()));
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+        int next = 0;
+        for (String outer : outers) {
+            shards.get(next++ % shardCount).add(outer);
+        }
+
+        final Path shardDirectory = getTemporaryDir().toPath().resolve("shards");
+        FileUtils.delete(shardDirectory);
+
+        final WorkQueue executor = getWorkerExecutor().noIsolation();
+        final List<File> shardFiles = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            final File shardFile = shardDirectory.resolve("shard-" + i + ".zip").toFile();
+            final List<String> shard = shards.get(i);
+            shardFiles.add(shardFile);
+            executor.submit(GenerateBinaryPatchesAction.class, params -> {
+                params.getClassIndex().set(getClassIndex());
+                params.getClean().set(getClean());
+                params.getPatched().set(getPatched());
+                params.getMappings().set(getMappings());
+                params.getOuterClasses().set(shard);
+                params.getOutputFile().set(shardFile);
+            });
+        }
+        executor.await();
+
+        final Map<String, byte[]> patches = new TreeMap<>();
+        for (File shardFile : shardFiles) {
+            try (ZipFile zip = new ZipFile(shardFile)) {
+                final Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    final ZipEntry entry = entries.nextElement();
+                    try (InputStream stream = zip.getInputStream(entry)) {
+                        patches.put(entry.getName(), stream.readAllBytes());
+                    }
+                }
+            }
+        }
+
+        BinaryPatchGenerator.writePatchArchive(output.toPath(), patches);
+        FileUtils.delete(shardDirectory);
     }
 
+    @ServiceReference(ClassIndexService.NAME)
+    public abstract Property<ClassIndexService> getClassIndex();
+
     @InputFile
     @PathSensitive(PathSensitivity.NONE)
     public abstract RegularFileProperty getClean();
@@ -41,7 +118,7 @@ public abstract class GenerateBinaryPatches extends DefaultExecute implements Wi
     public abstract RegularFileProperty getPatched();
 
     @InputFiles
-    @PathSensitive(PathSensitivity.NONE)
+    @PathSensitive(PathSensitivity.RELATIVE)
     public abstract ConfigurableFileCollection getPatches();
     
     @InputFile
@@ -51,4 +128,14 @@ public abstract class GenerateBinaryPatches extends DefaultExecute implements Wi
     @Input
     @Optional
     public abstract Property<DistributionType> getDistributionType();
+
+    /**
+     * The amount of shards the classes are split into, each shard is diffed by its own worker.
+     * This does not influence the output.
+     */
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
 }
@@ -5,15 +5,14 @@
 
 package net.neoforged.gradle.platform.runtime.runtime.tasks;
 
-import io.codechicken.diffpatch.cli.CliOperation;
-import io.codechicken.diffpatch.cli.DiffOperation;
-import io.codechicken.diffpatch.util.Input.MultiInput;
-import io.codechicken.diffpatch.util.Output.MultiOutput;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.util.DiffPatchUtils;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.nio.file.Path;
@@ -28,6 +27,8 @@ public abstract class GenerateSourcePatches extends DefaultRuntime implements Wi
         getContextLines().convention(-1);
         getShouldCreateAutomaticHeader().convention(true);
         getShouldPrintSummary().convention(false);
+        getParallelism().convention(Runtime.getRuntime().availableProcessors());
+        getDiffIndex().convention(getOutputDirectory().file("diff-index.txt"));
     }
 
     @TaskAction
@@ -38,25 +39,31 @@ public abstract class GenerateSourcePatches extends DefaultRuntime implements Wi
         getLogger().info("Base: {}", base);
         getLogger().info("Modified: {}", modified);
 
-        DiffOperation.Builder builder = DiffOperation.builder()
-                .logTo(getLogger()::lifecycle)
-                .baseInput(MultiInput.detectedArchive(base))
-                .changedInput(MultiInput.detectedArchive(modified))
-                .patchesOutput(MultiOutput.detectedArchive(output))
-                .autoHeader(getShouldCreateAutomaticHeader().get())
-                .level(getShouldOutputVerboseLogging().get() ? io.codechicken.diffpatch.util.LogLevel.ALL : io.codechicken.diffpatch.util.LogLevel.WARN)
-                .summary(getShouldPrintSummary().get())
-                .aPrefix(getOriginalPrefix().get())
-                .bPrefix(getModifiedPrefix().get())
-                .lineEnding(getLineEnding().get());
-
-        if (getContextLines().get() != -1) {
-            builder.context(getContextLines().get());
-        }
+        //Everything which influences the content of the produced patches, a change to any of these requires a full re-diff.
+        final String fingerprint = String.join("\n",
+                getOriginalPrefix().get(),
+                getModifiedPrefix().get(),
+                getLineEnding().get(),
+                String.valueOf(getContextLines().get()),
+                String.valueOf(getShouldCreateAutomaticHeader().get())
+        );
+
+        int exit = DiffPatchUtils.diff(base, modified, output, getDiffIndex().get().getAsFile().toPath(), fingerprint, getTemporaryDir().toPath(), getParallelism().get(), getParallelExecution().get().getExecutor(), builder -> {
+            builder.logTo(getLogger()::lifecycle)
+                    .autoHeader(getShouldCreateAutomaticHeader().get())
+                    .level(getShouldOutputVerboseLogging().get() ? io.codechicken.diffpatch.util.LogLevel.ALL : io.codechicken.diffpatch.util.LogLevel.WARN)
+                    .summary(getShouldPrintSummary().get())
+                    .aPrefix(getOriginalPrefix().get())
+                    .bPrefix(getModifiedPrefix().get())
+                    .lineEnding(getLineEnding().get());
+
+            if (getContextLines().get() != -1) {
+                builder.context(getContextLines().get());
+            }
 
-        CliOperation.Result<DiffOperation.DiffSummary> result = builder.build().operate();
+            return builder;
+        });
 
-        int exit = result.exit;
         if (exit != 0 && exit != 1) {
             throw new RuntimeException("DiffPatch failed with exit code: " + exit);
         }
@@ -93,4 +100,19 @@ public abstract class GenerateSourcePatches extends DefaultRuntime implements Wi
     @Input
     @Optional
     public abstract Property<Boolean> getShouldPrintSummary();
+    
+    /**
+     * The maximal amount of diff shards which are created concurrently, this does not influence the output.
+     */
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    @ServiceReference(ParallelExecutionService.NAME)
+    public abstract Property<ParallelExecutionService> getParallelExecution();
+    
+    /**
+     * The index of the results of the last run, used to only re-diff the entries which changed.
+     */
+    @LocalState
+    public abstract RegularFileProperty getDiffIndex();
 }
@@ -0,0 +1,73 @@
+package net.neoforged.gradle.platform.runtime.runtime.tasks.action;
+
+import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.gradle.platform.services.ClassIndexService;
+import net.neoforged.gradle.platform.util.BinaryPatchGenerator;
+import net.neoforged.gradle.util.FileUtils;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Creates the binary patches of a share of the outer classes of a jar.
+ * <p>
+ * The patches are written as the entries of an uncompressed zip, so they can be merged into the final patch archive
+ * once all shares are done.
+ */
+public abstract class GenerateBinaryPatchesAction implements WorkAction<GenerateBinaryPatchesAction.Params> {
+
+    @Override
+    public void execute() {
+        final File output = getParameters().getOutputFile().get().getAsFile();
+        try {
+            final ClassIndexService classIndex = getParameters().getClassIndex().get();
+            final BinaryPatchGenerator generator = new BinaryPatchGenerator(
+                    classIndex.get(getParameters().getClean().get().getAsFile()),
+                    classIndex.get(getParameters().getPatched().get().getAsFile()),
+                    IMappingFile.load(getParameters().getMappings().get().getAsFile())
+            );
+
+            writeShard(output.toPath(), generator.createPatches(getParameters().getOuterClasses().get()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate binary patches into: " + output, e);
+        }
+    }
+
+    private static void writeShard(final Path output, final Map<String, byte[]> patches) throws IOException {
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (OutputStream stream = Files.newOutputStream(output);
+             ZipOutputStream zip = new ZipOutputStream(stream)) {
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            for (Map.Entry<String, byte[]> patch : patches.entrySet()) {
+                zip.putNextEntry(FileUtils.getStableEntry(patch.getKey()));
+                zip.write(patch.getValue());
+                zip.closeEntry();
+            }
+        }
+    }
+
+    public interface Params extends WorkParameters {
+        Property<ClassIndexService> getClassIndex();
+
+        RegularFileProperty getClean();
+
+        RegularFileProperty getPatched();
+
+        RegularFileProperty getMappings();
+
+        ListProperty<String> getOuterClasses();
+
+        RegularFileProperty getOutputFile();
+    }
+}
@@ -0,0 +1,67 @@
+package net.neoforged.gradle.platform.services;
+
+import net.neoforged.gradle.common.util.FileIdentity;
+import net.neoforged.gradle.dsl.platform.util.ModuleCoordinate;
+import org.gradle.api.Project;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A build scoped index of the maven coordinates of the artifacts in the local caches.
+ * <p>
+ * The platform generates several files (userdev config, server args for each os, ...) from the same library collections,
+ * this service makes sure that the coordinate inference for each of those files only happens once per build.
+ */
+public abstract class ArtifactCoordinateIndexService implements BuildService<BuildServiceParameters.None> {
+
+    public static final String NAME = "ArtifactCoordinateIndexService";
+
+    private final Map<FileIdentity, ModuleCoordinate> coordinates = new ConcurrentHashMap<>();
+
+    public static void register(Project project) {
+        project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                ArtifactCoordinateIndexService.class,
+                spec -> {}
+        );
+    }
+
+    /**
+     * Gets the coordinate of the given file.
+     *
+     * @param file The file to get the coordinate for.
+     * @return The coordinate of the file.
+     */
+    public ModuleCoordinate get(final File file) {
+        return coordinates.computeIfAbsent(FileIdentity.of(file), identity -> ModuleCoordinate.identify(file));
+    }
+
+    /**
+     * Gets the coordinates of all given files, the files which are not yet indexed are identified in parallel.
+     *
+     * @param files The files to get the coordinates for.
+     * @return The coordinates of the files, in the iteration order of the given files.
+     */
+    public Map<File, ModuleCoordinate> getAll(final Iterable<File> files) {
+        final List<File> fileList = new ArrayList<>();
+        files.forEach(fileList::add);
+
+        final List<ModuleCoordinate> resolved = fileList.parallelStream()
+                .map(this::get)
+                .collect(Collectors.toList());
+
+        final Map<File, ModuleCoordinate> result = new LinkedHashMap<>();
+        for (int i = 0; i < fileList.size(); i++) {
+            result.put(fileList.get(i), resolved.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,160 @@
+package net.neoforged.gradle.platform.services;
+
+import net.neoforged.gradle.common.util.FileIdentity;
+import org.gradle.api.Project;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A build scoped index of the classes in jar files.
+ * <p>
+ * The binary patches of the client, server and joined distributions are all generated against the same patched jar,
+ * this service makes sure that each jar is only opened and indexed once per build, regardless of how many
+ * distributions use it.
+ * <p>
+ * The index only holds the names of the classes, the jar itself is not kept open. Users open a {@link ClassIndex.Reader}
+ * for the duration of their work instead. When a jar is rewritten during the build, its old index is replaced.
+ */
+public abstract class ClassIndexService implements BuildService<BuildServiceParameters.None> {
+
+    public static final String NAME = "ClassIndexService";
+
+    private final Map<String, ClassIndex> indexes = new ConcurrentHashMap<>();
+
+    public static void register(Project project) {
+        project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                ClassIndexService.class,
+                spec -> {}
+        );
+    }
+
+    /**
+     * Gets the class index of the given jar.
+     *
+     * @param jar The jar to index.
+     * @return The index of the classes in the jar.
+     */
+    public ClassIndex get(final File jar) {
+        final FileIdentity identity = FileIdentity.of(jar);
+        return indexes.compute(identity.getPath(), (path, existing) -> {
+            //When the jar was rewritten, the old index describes content which no longer exists.
+            if (existing != null && existing.identity.equals(identity)) {
+                return existing;
+            }
+
+            try {
+                return ClassIndex.of(jar, identity);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to index the classes of: " + jar, e);
+            }
+        });
+    }
+
+    /**
+     * The classes in a single jar, grouped by their outer class.
+     */
+    public static final class ClassIndex {
+        private static final String CLASS_EXTENSION = ".class";
+
+        private final FileIdentity identity;
+        private final File jar;
+        private final Set<String> classes;
+        private final Map<String, Set<String>> classesByOuter;
+
+        private ClassIndex(FileIdentity identity, File jar, Set<String> classes, Map<String, Set<String>> classesByOuter) {
+            this.identity = identity;
+            this.jar = jar;
+            this.classes = Collections.unmodifiableSet(classes);
+            this.classesByOuter = Collections.unmodifiableMap(classesByOuter);
+        }
+
+        private static ClassIndex of(final File jar, final FileIdentity identity) throws IOException {
+            final Set<String> classes = new TreeSet<>();
+            final Map<String, Set<String>> classesByOuter = new TreeMap<>();
+            try (ZipFile zip = new ZipFile(jar)) {
+                zip.stream()
+                        .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(CLASS_EXTENSION))
+                        .forEach(entry -> {
+                            final String name = entry.getName().substring(0, entry.getName().length() - CLASS_EXTENSION.length());
+                            final int innerIndex = name.indexOf('$');
+                            classes.add(name);
+                            classesByOuter.computeIfAbsent(innerIndex == -1 ? name : name.substring(0, innerIndex), key -> new TreeSet<>()).add(name);
+                        });
+            }
+
+            return new ClassIndex(identity, jar, classes, classesByOuter);
+        }
+
+        /**
+         * @return The names of all classes, keyed by the name of their outermost class.
+         */
+        public Map<String, Set<String>> getClassesByOuter() {
+            return classesByOuter;
+        }
+
+        public boolean contains(final String className) {
+            return classes.contains(className);
+        }
+
+        /**
+         * Opens the jar for reading the bytes of its classes.
+         *
+         * @return The reader, which must be closed once done.
+         * @throws IOException If an I/O error occurs.
+         */
+        public Reader open() throws IOException {
+            return new Reader(new ZipFile(jar));
+        }
+
+        /**
+         * Reads the classes of an opened jar.
+         */
+        public static final class Reader implements Closeable {
+            private final ZipFile zip;
+
+            private Reader(ZipFile zip) {
+                this.zip = zip;
+            }
+
+            /**
+             * Reads the bytes of the given class.
+             *
+             * @param className The internal name of the class.
+             * @return The bytes of the class, or {@code null} if the jar does not contain the class.
+             * @throws IOException If an I/O error occurs.
+             */
+            @Nullable
+            public byte[] read(final String className) throws IOException {
+                final ZipEntry entry = zip.getEntry(className + CLASS_EXTENSION);
+                if (entry == null) {
+                    return null;
+                }
+
+                try (InputStream stream = zip.getInputStream(entry)) {
+                    return stream.readAllBytes();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                zip.close();
+            }
+        }
+    }
+}
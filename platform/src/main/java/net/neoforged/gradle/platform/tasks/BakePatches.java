@@ -1,13 +1,13 @@
 package net.neoforged.gradle.platform.tasks;
 
-import io.codechicken.diffpatch.cli.PatchOperation;
-import io.codechicken.diffpatch.util.Input.MultiInput;
-import io.codechicken.diffpatch.util.Output.MultiOutput;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.util.DiffPatchUtils;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
@@ -17,6 +17,7 @@ public abstract class BakePatches extends DefaultRuntime implements WithOutput,
 
     public BakePatches() {
         getLineEndings().convention(System.lineSeparator());
+        getParallelism().convention(Runtime.getRuntime().availableProcessors());
     }
 
     @TaskAction
@@ -24,10 +25,13 @@ public abstract class BakePatches extends DefaultRuntime implements WithOutput,
         final File input = getInput().get().getAsFile();
         final File output = ensureFileWorkspaceReady(getOutput());
 
-        PatchOperation.bakePatches(
-                MultiInput.detectedArchive(input.toPath()),
-                MultiOutput.detectedArchive(output.toPath()),
-                getLineEndings().get()
+        DiffPatchUtils.bake(
+                input.toPath(),
+                output.toPath(),
+                getLineEndings().get(),
+                getTemporaryDir().toPath(),
+                getParallelism().get(),
+                getParallelExecution().get().getExecutor()
         );
     }
 
@@ -37,4 +41,13 @@ public abstract class BakePatches extends DefaultRuntime implements WithOutput,
 
     @Input
     public abstract Property<String> getLineEndings();
+
+    /**
+     * The maximal amount of patch shards which are baked concurrently, this does not influence the output.
+     */
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    @ServiceReference(ParallelExecutionService.NAME)
+    public abstract Property<ParallelExecutionService> getParallelExecution();
 }
@@ -2,6 +2,7 @@ package net.neoforged.gradle.platform.tasks;
 
 import com.google.common.collect.ImmutableMap;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.platform.services.ArtifactCoordinateIndexService;
 import net.neoforged.gradle.platform.util.ArtifactPathsCollector;
 import net.neoforged.gradle.platform.util.StringUtils;
 import org.apache.tools.ant.filters.ReplaceTokens;
@@ -9,6 +10,7 @@ import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
@@ -35,8 +37,9 @@ public abstract class CreateClasspathFiles extends DefaultRuntime implements Tok
         ArtifactPathsCollector modulePathCollector = new ArtifactPathsCollector(getObjectFactory(), getPathSeparator().get(), "libraries/");
         ArtifactPathsCollector classpathCollector = new ArtifactPathsCollector(getObjectFactory(), getPathSeparator().get(), "libraries/");
         
-        getModulePath().getAsFileTree().visit(modulePathCollector);
-        getClasspath().getAsFileTree().visit(classpathCollector);
+        final ArtifactCoordinateIndexService coordinateIndex = getCoordinateIndex().get();
+        coordinateIndex.getAll(getModulePath().getAsFileTree()).forEach(modulePathCollector::visitCoordinate);
+        coordinateIndex.getAll(getClasspath().getAsFileTree()).forEach(classpathCollector::visitCoordinate);
         
         tokens.put("MODULE_PATH", modulePathCollector.toString());
         
@@ -69,6 +72,9 @@ public abstract class CreateClasspathFiles extends DefaultRuntime implements Tok
         });
     }
 
+    @ServiceReference(ArtifactCoordinateIndexService.NAME)
+    public abstract Property<ArtifactCoordinateIndexService> getCoordinateIndex();
+
     @InputFile
     @PathSensitive(PathSensitivity.NONE)
     public abstract RegularFileProperty getTemplate();
@@ -2,6 +2,7 @@ package net.neoforged.gradle.platform.tasks;
 
 import com.google.gson.Gson;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import net.neoforged.gradle.dsl.platform.model.LauncherProfile;
@@ -9,6 +10,7 @@ import net.neoforged.gradle.dsl.platform.util.LibraryCollector;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
@@ -35,7 +37,7 @@ public abstract class CreateLauncherJson extends DefaultRuntime implements WithO
         clone.getLibraries().addAll(
                 getProviderFactory().provider(() -> {
                     getLogger().info("Collecting libraries for Launcher Profile");
-                    final LibraryCollector profileFiller = new LibraryCollector(getObjectFactory(), getRepositoryURLs().get(), getLogger());
+                    final LibraryCollector profileFiller = new LibraryCollector(getObjectFactory(), getRepositoryURLs().get(), getLogger(), FileHashCacheService.getCache(getHashCache()));
                     getLibraries().getAsFileTree().visit(profileFiller);
                     return profileFiller.getLibraries();
                 })
@@ -59,4 +61,7 @@ public abstract class CreateLauncherJson extends DefaultRuntime implements WithO
 
     @Input
     public abstract ListProperty<URI> getRepositoryURLs();
+
+    @ServiceReference(FileHashCacheService.NAME)
+    public abstract Property<FileHashCacheService> getHashCache();
 }
@@ -2,6 +2,7 @@ package net.neoforged.gradle.platform.tasks;
 
 import com.google.gson.Gson;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
+import net.neoforged.gradle.common.services.caching.FileHashCacheService;
 import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import net.neoforged.gradle.dsl.platform.model.InstallerProfile;
@@ -9,12 +10,14 @@ import net.neoforged.gradle.dsl.platform.util.LibraryCollector;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
 @CacheableTask
@@ -25,22 +28,16 @@ public abstract class CreateLegacyInstallerJson extends DefaultRuntime implement
     }
     
     @TaskAction
-    public void run() {
-        final Gson gson = InstallerProfile.createGson(getObjectFactory());
+    public void run() throws IOException {
         final File output = ensureFileWorkspaceReady(getOutput());
-        
-        final InstallerProfile profile = getProfile().get();
-        final InstallerProfile copy = gson.fromJson(gson.toJson(profile), InstallerProfile.class);
 
         getLogger().info("Collecting gameplay libraries for installer");
-        var profileFiller = new LibraryCollector(getObjectFactory(), getRepositoryURLs().get(), getLogger());
+        var profileFiller = new LibraryCollector(getObjectFactory(), getRepositoryURLs().get(), getLogger(), FileHashCacheService.getCache(getHashCache()));
         getLibraries().getAsFileTree().visit(profileFiller);
-        copy.getLibraries().addAll(profileFiller.getLibraries());
 
-        try {
-            Files.write(output.toPath(), gson.toJson(copy).getBytes());
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        final Gson gson = InstallerProfile.createGson(getObjectFactory(), profileFiller.getLibraries());
+        try (Writer writer = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(getProfile().get(), InstallerProfile.class, writer);
         }
     }
     
@@ -53,4 +50,7 @@ public abstract class CreateLegacyInstallerJson extends DefaultRuntime implement
 
     @Input
     public abstract ListProperty<URI> getRepositoryURLs();
+
+    @ServiceReference(FileHashCacheService.NAME)
+    public abstract Property<FileHashCacheService> getHashCache();
 }
@@ -6,15 +6,17 @@ import net.neoforged.gradle.dsl.common.tasks.WithOutput;
 import net.neoforged.gradle.dsl.common.tasks.WithWorkspace;
 import net.neoforged.gradle.dsl.platform.util.CoordinateCollector;
 import net.neoforged.gradle.dsl.userdev.configurations.UserdevProfile;
+import net.neoforged.gradle.platform.services.ArtifactCoordinateIndexService;
 import org.gradle.api.file.ConfigurableFileCollection;
-import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.*;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Set;
 
 @CacheableTask
 public abstract class CreateUserdevJson  extends DefaultRuntime implements WithOutput, WithWorkspace {
@@ -25,30 +27,28 @@ public abstract class CreateUserdevJson  extends DefaultRuntime implements WithO
     
     @TaskAction
     public void doTask() throws Exception {
-        final Gson gson = UserdevProfile.createGson(getObjectFactory());
         final File output = ensureFileWorkspaceReady(getOutput());
         
-        final UserdevProfile profile = getProfile().get();
-        final UserdevProfile clone = gson.fromJson(gson.toJson(profile), UserdevProfile.class);
+        final Gson gson = UserdevProfile.createGson(
+                getObjectFactory(),
+                collect(getLibraries()),
+                collect(getTestLibraries()),
+                collect(getModules())
+        );
         
-        collect(getLibraries(), clone.getAdditionalDependencyArtifactCoordinates());
-        collect(getTestLibraries(), clone.getAdditionalTestDependencyArtifactCoordinates());
-        collect(getModules(), clone.getModules());
-        
-        final String json = gson.toJson(clone);
-        
-        try {
-            Files.write(output.toPath(), json.getBytes());
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        try (Writer writer = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(getProfile().get(), UserdevProfile.class, writer);
         }
     }
 
-    private void collect(ConfigurableFileCollection libraries, ListProperty<String> coords) {
+    private Set<String> collect(ConfigurableFileCollection libraries) {
         final CoordinateCollector collector = new CoordinateCollector(getObjectFactory());
-        libraries.getAsFileTree().visit(collector);
-        coords.addAll(collector.getCoordinates());
+        getCoordinateIndex().get().getAll(libraries.getAsFileTree()).forEach(collector::visitCoordinate);
+        return collector.getCoordinates();
     }
+
+    @ServiceReference(ArtifactCoordinateIndexService.NAME)
+    public abstract Property<ArtifactCoordinateIndexService> getCoordinateIndex();
     
     @Nested
     public abstract Property<UserdevProfile> getProfile();
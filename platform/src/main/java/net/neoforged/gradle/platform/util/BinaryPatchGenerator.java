@@ -0,0 +1,180 @@
+package net.neoforged.gradle.platform.util;
+
+import com.nothome.delta.Delta;
+import lzma.streams.LzmaOutputStream;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.gradle.platform.services.ClassIndexService;
+import net.neoforged.gradle.util.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates binary patches between a clean and a patched jar, in the format of the binarypatcher tool.
+ * <p>
+ * Every outer class is diffed independently, so the outer classes can be split over multiple workers which each
+ * create the patches of their share, see {@link #createPatches(Collection)}. Classes whose bytes are identical in both
+ * jars are skipped. The resulting patch archive is stored uncompressed and then LZMA compressed as a whole, exactly like the tool does.
+ */
+public final class BinaryPatchGenerator {
+
+    private static final byte PATCH_VERSION = 1;
+    private static final String PATCH_EXTENSION = ".binpatch";
+    private static final String SOURCE_PATCH_EXTENSION = ".java.patch";
+    private static final byte[] EMPTY_DATA = new byte[0];
+
+    private final ClassIndexService.ClassIndex clean;
+    private final ClassIndexService.ClassIndex patched;
+    private final IMappingFile mappings;
+
+    /**
+     * Creates a new generator.
+     *
+     * @param clean The index of the clean jar.
+     * @param patched The index of the patched jar.
+     * @param mappings The mappings from the names in the jars to the names used for the patch entries.
+     */
+    public BinaryPatchGenerator(ClassIndexService.ClassIndex clean, ClassIndexService.ClassIndex patched, IMappingFile mappings) {
+        this.clean = clean;
+        this.patched = patched;
+        this.mappings = mappings;
+    }
+
+    /**
+     * Collects the (mapped) names of the classes which have source patches in the given patch directories.
+     *
+     * @param patchFiles The relative paths of all files in the patch directories.
+     * @return The names of the patched classes.
+     */
+    public static Set<String> collectPatchedClasses(final Collection<String> patchFiles) {
+        final Set<String> result = new TreeSet<>();
+        for (String patchFile : patchFiles) {
+            if (patchFile.endsWith(SOURCE_PATCH_EXTENSION)) {
+                result.add(patchFile.replace('\\', '/').substring(0, patchFile.length() - SOURCE_PATCH_EXTENSION.length()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the outer classes which need to be diffed, in the names used inside the jars.
+     *
+     * @param patchedClasses The (mapped) names of the outer classes which have source patches,
+     *                       if empty all classes in the jars are considered.
+     * @return The names of the outer classes.
+     */
+    public Set<String> collectOuterClasses(final Set<String> patchedClasses) {
+        final Set<String> outers = new TreeSet<>();
+        if (patchedClasses.isEmpty()) {
+            outers.addAll(clean.getClassesByOuter().keySet());
+            outers.addAll(patched.getClassesByOuter().keySet());
+            return outers;
+        }
+
+        final Map<String, String> obfuscatedByMapped = new TreeMap<>();
+        mappings.getClasses().forEach(cls -> obfuscatedByMapped.put(cls.getMapped(), cls.getOriginal()));
+        patchedClasses.forEach(mapped -> outers.add(obfuscatedByMapped.getOrDefault(mapped, mapped)));
+        return outers;
+    }
+
+    /**
+     * Creates the patches of the given outer classes and their inner classes.
+     *
+     * @param outers The names of the outer classes, as used inside the jars.
+     * @return The patches, keyed by the name of their entry in the patch archive.
+     * @throws IOException If an I/O error occurs.
+     */
+    public Map<String, byte[]> createPatches(final Collection<String> outers) throws IOException {
+        final Map<String, byte[]> result = new TreeMap<>();
+        try (ClassIndexService.ClassIndex.Reader cleanReader = clean.open();
+             ClassIndexService.ClassIndex.Reader patchedReader = patched.open()) {
+            for (String outer : outers) {
+                final Set<String> classes = new TreeSet<>(clean.getClassesByOuter().getOrDefault(outer, Set.of()));
+                classes.addAll(patched.getClassesByOuter().getOrDefault(outer, Set.of()));
+
+                for (String cls : classes) {
+                    final byte[] patchedData = patchedReader.read(cls);
+                    if (patchedData == null) {
+                        //Removed classes can not be expressed as a patch.
+                        continue;
+                    }
+
+                    final byte[] cleanData = clean.contains(cls) ? cleanReader.read(cls) : EMPTY_DATA;
+                    if (Arrays.equals(cleanData, patchedData)) {
+                        continue;
+                    }
+
+                    final String mapped = mappings.remapClass(cls);
+                    result.put(mapped.replace('/', '.') + PATCH_EXTENSION, createPatch(cls, mapped, cleanData, patchedData));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the LZMA compressed patch archive to the given output.
+     *
+     * @param output The output file.
+     * @param patches The patches, keyed by the name of their entry in the patch archive.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static void writePatchArchive(final Path output, final Map<String, byte[]> patches) throws IOException {
+        final Path parent = Files.createDirectories(output.toAbsolutePath().getParent());
+        final Path temporary = FileUtils.temporaryPath(parent, "binpatches");
+        try (OutputStream stream = Files.newOutputStream(temporary);
+             LzmaOutputStream lzma = new LzmaOutputStream.Builder(stream).useEndMarkerMode(true).build()) {
+            lzma.write(createArchive(new TreeMap<>(patches)));
+        }
+        FileUtils.atomicMove(temporary, output);
+    }
+
+    private static byte[] createPatch(final String obfuscated, final String mapped, final byte[] clean, final byte[] patched) throws IOException {
+        final byte[] diff = new Delta().compute(clean, patched);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(diff.length + obfuscated.length() + mapped.length() + 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PATCH_VERSION);
+            out.writeUTF(obfuscated);
+            out.writeUTF(mapped);
+            if (clean.length == 0) {
+                out.writeBoolean(false);
+            } else {
+                final Adler32 checksum = new Adler32();
+                checksum.update(clean);
+                out.writeBoolean(true);
+                out.writeInt((int) checksum.getValue());
+            }
+            out.writeInt(diff.length);
+            out.write(diff);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] createArchive(final Map<String, byte[]> patches) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            //Do not deflate the entries, the archive as a whole is LZMA compressed which is far more effective on raw data.
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            for (Map.Entry<String, byte[]> patch : patches.entrySet()) {
+                zip.putNextEntry(FileUtils.getStableEntry(patch.getKey()));
+                zip.write(patch.getValue());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
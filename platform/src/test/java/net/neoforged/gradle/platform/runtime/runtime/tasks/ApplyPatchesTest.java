@@ -0,0 +1,221 @@
+package net.neoforged.gradle.platform.runtime.runtime.tasks;
+
+import net.neoforged.gradle.common.services.execution.ParallelExecutionService;
+import net.neoforged.gradle.common.util.EntryHashIndex;
+import org.gradle.api.Project;
+import org.gradle.api.file.FileType;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static net.neoforged.gradle.utils.test.ZipFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ApplyPatchesTest {
+
+    @TempDir
+    public Path directory;
+
+    private Project project;
+    private Path base;
+    private Path patches;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        project = ProjectBuilder.builder().withProjectDir(Files.createDirectories(directory.resolve("project")).toFile()).build();
+        ParallelExecutionService.register(project);
+        base = directory.resolve("base.jar");
+        patches = Files.createDirectories(directory.resolve("patches"));
+
+        writeTextArchive(base, Map.of(
+                "a/Foo.java", "one\ntwo\nthree\n",
+                "a/Bar.java", "four\nfive\nsix\n",
+                "a/Baz.java", "seven\neight\nnine\n"
+        ));
+        writePatch("a/Foo.java", "two", "patched two");
+        writePatch("a/Bar.java", "five", "patched five");
+    }
+
+    @Test
+    public void modifiedPatchIsReappliedIncrementally() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+
+        writePatch("a/Foo.java", "two", "patched two again");
+        task.doTask(incrementalChanges(task, change("a/Foo.java", ChangeType.MODIFIED)));
+
+        final Map<String, String> output = read(task);
+        assertTrue(output.get("a/Foo.java").contains("patched two again"));
+        assertTrue(output.get("a/Bar.java").contains("patched five"));
+        assertOutputMatchesFullRun(task);
+    }
+
+    @Test
+    public void addedPatchIsAppliedIncrementally() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+
+        writePatch("a/Baz.java", "eight", "patched eight");
+        task.doTask(incrementalChanges(task, change("a/Baz.java", ChangeType.ADDED)));
+
+        final Map<String, String> output = read(task);
+        assertTrue(output.get("a/Baz.java").contains("patched eight"));
+        assertTrue(output.get("a/Foo.java").contains("patched two"));
+        assertOutputMatchesFullRun(task);
+    }
+
+    @Test
+    public void removedPatchRestoresTheBaseEntry() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+
+        Files.delete(patchFile("a/Foo.java"));
+        task.doTask(incrementalChanges(task, change("a/Foo.java", ChangeType.REMOVED)));
+
+        final Map<String, String> output = read(task);
+        assertEquals("one\ntwo\nthree\n", output.get("a/Foo.java"));
+        assertTrue(output.get("a/Bar.java").contains("patched five"));
+        assertNull(EntryHashIndex.read(task.getPatchIndex().get().getAsFile().toPath(), task.indexOptions(), task.getOutput().get().getAsFile().toPath()).get("a/Foo.java"));
+        assertOutputMatchesFullRun(task);
+    }
+
+    @Test
+    public void touchedButUnchangedPatchKeepsTheOutput() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+        final byte[] previous = Files.readAllBytes(task.getOutput().get().getAsFile().toPath());
+
+        task.doTask(incrementalChanges(task, change("a/Foo.java", ChangeType.MODIFIED)));
+
+        assertArrayEquals(previous, Files.readAllBytes(task.getOutput().get().getAsFile().toPath()));
+    }
+
+    @Test
+    public void changedBaseJarIsPatchedAgain() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+
+        //A change to the base is not incremental, gradle reruns the task with all patches.
+        writeTextArchive(base, Map.of(
+                "a/Foo.java", "zero\none\ntwo\nthree\n",
+                "a/Bar.java", "four\nfive\nsix\n",
+                "a/Baz.java", "seven\neight\nnine\n"
+        ));
+        task.doTask(fullChanges());
+
+        final Map<String, String> output = read(task);
+        assertTrue(output.get("a/Foo.java").startsWith("zero"));
+        assertTrue(output.get("a/Foo.java").contains("patched two"));
+
+        //The index now describes the new base, so a later incremental run builds on it.
+        writePatch("a/Bar.java", "five", "patched five again");
+        task.doTask(incrementalChanges(task, change("a/Bar.java", ChangeType.MODIFIED)));
+
+        assertTrue(read(task).get("a/Foo.java").startsWith("zero"));
+        assertOutputMatchesFullRun(task);
+    }
+
+    @Test
+    public void otherFilesInTheRejectsDirectoryAreKept() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        final Path notes = Files.createDirectories(task.getRejects().get().getAsFile().toPath()).resolve("notes.txt");
+        Files.writeString(notes, "keep me");
+
+        task.doTask(fullChanges());
+        task.doTask(fullChanges());
+
+        assertEquals("keep me", Files.readString(notes));
+    }
+
+    @Test
+    public void modifiedOutputFallsBackToAFullRun() throws Exception {
+        final ApplyPatches task = createTask("applyPatches");
+        task.doTask(fullChanges());
+
+        Files.writeString(task.getOutput().get().getAsFile().toPath(), "not a jar");
+        writePatch("a/Foo.java", "two", "patched two again");
+        task.doTask(incrementalChanges(task, change("a/Foo.java", ChangeType.MODIFIED)));
+
+        assertTrue(read(task).get("a/Foo.java").contains("patched two again"));
+        assertOutputMatchesFullRun(task);
+    }
+
+    private ApplyPatches createTask(final String name) {
+        final Path workspace = directory.resolve(name);
+        final ApplyPatches task = project.getTasks().register(name, ApplyPatches.class).get();
+        task.getBase().set(base.toFile());
+        task.getPatches().set(patches.toFile());
+        task.getOutput().set(workspace.resolve("output.jar").toFile());
+        task.getRejects().set(workspace.resolve("rejects").toFile());
+        task.getPatchIndex().set(workspace.resolve("patch-index.txt").toFile());
+        task.getParallelism().set(2);
+        return task;
+    }
+
+    private void assertOutputMatchesFullRun(final ApplyPatches task) throws Exception {
+        final ApplyPatches full = createTask(task.getName() + "Full");
+        full.doTask(fullChanges());
+
+        assertArrayEquals(
+                Files.readAllBytes(full.getOutput().get().getAsFile().toPath()),
+                Files.readAllBytes(task.getOutput().get().getAsFile().toPath())
+        );
+    }
+
+    private static InputChanges fullChanges() {
+        final InputChanges changes = mock(InputChanges.class);
+        when(changes.isIncremental()).thenReturn(false);
+        return changes;
+    }
+
+    private static InputChanges incrementalChanges(final ApplyPatches task, final FileChange... fileChanges) {
+        final InputChanges changes = mock(InputChanges.class);
+        when(changes.isIncremental()).thenReturn(true);
+        when(changes.getFileChanges(task.getPatches())).thenReturn(List.of(fileChanges));
+        return changes;
+    }
+
+    private FileChange change(final String entry, final ChangeType type) {
+        final FileChange change = mock(FileChange.class);
+        when(change.getFile()).thenReturn(patchFile(entry).toFile());
+        when(change.getFileType()).thenReturn(type == ChangeType.REMOVED ? FileType.MISSING : FileType.FILE);
+        when(change.getChangeType()).thenReturn(type);
+        when(change.getNormalizedPath()).thenReturn(entry + ".patch");
+        return change;
+    }
+
+    private Path patchFile(final String entry) {
+        return patches.resolve(entry + ".patch");
+    }
+
+    private void writePatch(final String entry, final String original, final String patched) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add("--- a/" + entry);
+        lines.add("+++ b/" + entry);
+        lines.add("@@ -2,1 +2,1 @@");
+        lines.add("-" + original);
+        lines.add("+" + patched);
+
+        final Path file = patchFile(entry);
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> read(final ApplyPatches task) throws IOException {
+        return readTextArchive(task.getOutput().get().getAsFile().toPath());
+    }
+}
@@ -0,0 +1,133 @@
+package net.neoforged.gradle.platform.tasks;
+
+import net.neoforged.gradle.dsl.platform.model.Artifact;
+import net.neoforged.gradle.dsl.platform.model.InstallerProfile;
+import net.neoforged.gradle.dsl.platform.model.Library;
+import net.neoforged.gradle.dsl.platform.model.LibraryDownload;
+import net.neoforged.gradle.dsl.platform.model.OsCondition;
+import net.neoforged.gradle.dsl.platform.model.Rule;
+import net.neoforged.gradle.dsl.platform.model.RuleAction;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstallerProfileJsonTest {
+
+    private ObjectFactory objects;
+
+    @BeforeEach
+    public void setup() {
+        objects = ProjectBuilder.builder().build().getObjects();
+    }
+
+    @Test
+    public void collectedLibrariesAreWrittenLikeAProfileWithTheLibrariesAdded() {
+        final InstallerProfile profile = createProfile();
+        final Library collected = createLibrary("net.neoforged:collected-library:1.0", "net/neoforged/collected-library/1.0/collected-library-1.0.jar");
+        final String written = InstallerProfile.createGson(objects, List.of(collected)).toJson(profile, InstallerProfile.class);
+
+        profile.getLibraries().add(collected);
+
+        assertEquals(InstallerProfile.createGson(objects).toJson(profile, InstallerProfile.class), written);
+    }
+
+    @Test
+    public void collectedLibrariesAreWrittenForAnEmptyProfile() {
+        final InstallerProfile profile = objects.newInstance(InstallerProfile.class);
+        final Library collected = createLibrary("net.neoforged:collected-library:1.0", "net/neoforged/collected-library/1.0/collected-library-1.0.jar");
+
+        final String written = InstallerProfile.createGson(objects, List.of(collected)).toJson(profile, InstallerProfile.class);
+
+        assertTrue(written.contains("net.neoforged:collected-library:1.0"));
+        assertTrue(profile.getLibraries().get().isEmpty());
+    }
+
+    @Test
+    public void libraryWhichIsAlreadyInTheProfileIsWrittenOnce() {
+        final InstallerProfile profile = createProfile();
+        final Library existing = profile.getLibraries().get().iterator().next();
+
+        final String written = InstallerProfile.createGson(objects, List.of(existing)).toJson(profile, InstallerProfile.class);
+
+        assertEquals(InstallerProfile.createGson(objects).toJson(profile, InstallerProfile.class), written);
+    }
+
+    private InstallerProfile createProfile() {
+        final InstallerProfile profile = objects.newInstance(InstallerProfile.class);
+        profile.getProfile().set("NeoForge");
+        profile.getVersion().set("neoforge-20.4.1");
+        profile.getIcon().set("data:image/png;base64,iVBORw0KGgo=");
+        profile.getMinecraft().set("1.20.4");
+        profile.getJson().set("/version.json");
+        profile.getLogo().set("/big_logo.png");
+        profile.getPath().set("net.neoforged:neoforge:20.4.1");
+        profile.getUrlIcon().set("/url.png");
+        profile.getWelcome().set("Welcome to the simple <NeoForge> installer & \"friends\".");
+        profile.getMirrorList().set("https://mirrors.neoforged.net");
+        profile.getShouldHideClient().set(false);
+        profile.getShouldHideServer().set(true);
+        profile.getShouldHideExtract().set(true);
+
+        profile.data("MAPPINGS", "[net.minecraft:client:1.20.4:mappings@txt]", "[net.minecraft:server:1.20.4:mappings@txt]");
+        profile.data("BINPATCH", "/data/client.lzma", "/data/server.lzma");
+        profile.getData().put("EMPTY", objects.newInstance(InstallerProfile.DataFile.class));
+
+        final InstallerProfile.Processor extract = objects.newInstance(InstallerProfile.Processor.class);
+        extract.getSides().set(List.of("server"));
+        extract.getJar().set("net.neoforged.installertools:installertools:2.1.0");
+        extract.getClasspath().set(Set.of("net.neoforged.installertools:installertools:2.1.0"));
+        extract.getArguments().set(List.of("--task", "EXTRACT_FILES", "--archive", "{INSTALLER}"));
+        profile.getProcessors().add(extract);
+
+        final InstallerProfile.Processor patch = objects.newInstance(InstallerProfile.Processor.class);
+        patch.getJar().set("net.neoforged.installertools:binarypatcher:2.1.0");
+        patch.getArguments().set(List.of("--clean", "{MC_SRG}", "--output", "{PATCHED}", "--apply", "{BINPATCH}"));
+        patch.getOutputs().put("{PATCHED}", "{PATCHED_SHA}");
+        patch.getOutputs().put("{MC_SRG}", "'1234'");
+        profile.getProcessors().add(patch);
+        profile.getProcessors().add(objects.newInstance(InstallerProfile.Processor.class));
+
+        final Library library = createLibrary("net.neoforged:bus:7.0.0", "net/neoforged/bus/7.0.0/bus-7.0.0.jar");
+        final Rule allowed = objects.newInstance(Rule.class);
+        allowed.getAction().set(RuleAction.ALLOWED);
+        final OsCondition os = objects.newInstance(OsCondition.class);
+        os.getName().set("osx");
+        os.getArch().set("x86");
+        os.getVersion().set("^10\\.5\\.\\d$");
+        allowed.getOs().set(os);
+        allowed.getFeatures().put("is_demo_user", false);
+        allowed.getFeatures().put("has_custom_resolution", true);
+        final Rule empty = objects.newInstance(Rule.class);
+        library.getRules().set(List.of(allowed, empty));
+        profile.getLibraries().add(library);
+
+        final Library withoutDownload = objects.newInstance(Library.class);
+        withoutDownload.getName().set("net.neoforged:without-download:1.0");
+        profile.getLibraries().add(withoutDownload);
+
+        profile.getServerJarPath().set("{LIBRARY_DIR}/net/minecraft/server/{MINECRAFT_VERSION}/server-{MINECRAFT_VERSION}.jar");
+        return profile;
+    }
+
+    private Library createLibrary(final String name, final String path) {
+        final Artifact artifact = objects.newInstance(Artifact.class);
+        artifact.getSha1().set("da39a3ee5e6b4b0d3255bfef95601890afd80709");
+        artifact.getSize().set(123456789012L);
+        artifact.getUrl().set("https://maven.neoforged.net/releases/" + path);
+        artifact.getPath().set(path);
+
+        final LibraryDownload download = objects.newInstance(LibraryDownload.class);
+        download.getArtifact().set(artifact);
+
+        final Library library = objects.newInstance(Library.class);
+        library.getName().set(name);
+        library.getDownload().set(download);
+        return library;
+    }
+}
@@ -0,0 +1,113 @@
+package net.neoforged.gradle.platform.tasks;
+
+import net.neoforged.gradle.dsl.userdev.configurations.UserdevProfile;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserdevProfileJsonTest {
+
+    private ObjectFactory objects;
+
+    @BeforeEach
+    public void setup() {
+        objects = ProjectBuilder.builder().build().getObjects();
+    }
+
+    @Test
+    public void collectedCoordinatesAreWrittenLikeAProfileWithTheCoordinatesAdded() {
+        final UserdevProfile profile = createProfile();
+        final String written = UserdevProfile.createGson(
+                objects,
+                List.of("net.neoforged:collected-library:1.0"),
+                List.of("net.neoforged:collected-test-library:1.0"),
+                List.of("net.neoforged:collected-module:1.0")
+        ).toJson(profile, UserdevProfile.class);
+
+        profile.getAdditionalDependencyArtifactCoordinates().add("net.neoforged:collected-library:1.0");
+        profile.getAdditionalTestDependencyArtifactCoordinates().add("net.neoforged:collected-test-library:1.0");
+        profile.getModules().add("net.neoforged:collected-module:1.0");
+
+        assertEquals(UserdevProfile.createGson(objects).toJson(profile, UserdevProfile.class), written);
+    }
+
+    @Test
+    public void collectedCoordinatesAreWrittenForAnEmptyProfile() {
+        final UserdevProfile profile = objects.newInstance(UserdevProfile.class);
+        final String written = UserdevProfile.createGson(
+                objects,
+                List.of("net.neoforged:collected-library:1.0"),
+                List.of(),
+                List.of()
+        ).toJson(profile, UserdevProfile.class);
+
+        assertTrue(written.contains("\"libraries\":[\"net.neoforged:collected-library:1.0\"]"));
+        assertFalse(written.contains("testLibraries"));
+        assertFalse(written.contains("modules"));
+    }
+
+    @Test
+    public void collectedCoordinatesDoNotChangeTheProfile() {
+        final UserdevProfile profile = createProfile();
+        final String before = UserdevProfile.createGson(objects).toJson(profile, UserdevProfile.class);
+
+        UserdevProfile.createGson(
+                objects,
+                List.of("net.neoforged:collected-library:1.0"),
+                List.of("net.neoforged:collected-test-library:1.0"),
+                List.of("net.neoforged:collected-module:1.0")
+        ).toJson(profile, UserdevProfile.class);
+
+        assertEquals(before, UserdevProfile.createGson(objects).toJson(profile, UserdevProfile.class));
+    }
+
+    private UserdevProfile createProfile() {
+        final UserdevProfile profile = objects.newInstance(UserdevProfile.class);
+        profile.getNeoForm().set("net.neoforged:neoform:1.20.4-20231207.154220@zip");
+        profile.getAccessTransformerDirectory().set("ats/");
+        profile.getBinaryPatchFile().set("joined.lzma");
+
+        final UserdevProfile.ToolExecution binaryPatcher = objects.newInstance(UserdevProfile.ToolExecution.class);
+        binaryPatcher.getTool().set("net.neoforged.installertools:binarypatcher:2.1.0:fatjar");
+        binaryPatcher.getArguments().set(List.of("--clean", "{clean}", "--output", "{output}", "--apply", "{patch}"));
+        binaryPatcher.getJvmArguments().set(List.of("-Xmx1G"));
+        binaryPatcher.getData().put("patch", "joined.lzma");
+        binaryPatcher.getData().put("clean", "{minecraft}");
+        profile.getBinaryPatcher().set(binaryPatcher);
+
+        profile.getSourcePatchesDirectory().set("patches/");
+        profile.getSourcesJarArtifactCoordinate().set("net.neoforged:neoforge:20.4.1:sources");
+        profile.getUniversalJarArtifactCoordinate().set("net.neoforged:neoforge:20.4.1:universal");
+        profile.getAdditionalDependencyArtifactCoordinates().set(List.of("net.neoforged:bus:7.0.0", "net.neoforged.fancymodloader:loader:2.0.0"));
+        profile.getAdditionalTestDependencyArtifactCoordinates().set(List.of("org.junit.jupiter:junit-jupiter-api:5.10.0"));
+        profile.getInjectedFilesDirectory().set("inject/");
+
+        profile.runType("server", runType -> {
+            runType.getMainClass().set("cpw.mods.bootstraplauncher.BootstrapLauncher");
+            runType.getArguments().set(List.of("--launchTarget", "forgeserveruserdev", "--nogui"));
+            runType.getIsServer().set(true);
+            runType.getSystemProperties().put("forge.enabledGameTestNamespaces", "{source_roots}");
+        });
+        profile.runType("client", runType -> {
+            runType.getIsSingleInstance().set(false);
+            runType.getMainClass().set("cpw.mods.bootstraplauncher.BootstrapLauncher");
+            runType.getArguments().set(List.of("--launchTarget", "forgeclientuserdev", "--version", "{mc_version}"));
+            runType.getJvmArguments().set(List.of("-Dfml.note=<\"quoted\" & escaped>", "-Dfml.unicode=\u00e9"));
+            runType.getIsClient().set(true);
+            runType.getIsDataGenerator().set(false);
+            runType.getIsGameTest().set(true);
+            runType.getIsJUnit().set(false);
+            runType.getEnvironmentVariables().putAll(Map.of("MOD_CLASSES", "{source_roots}"));
+            runType.getSystemProperties().put("java.net.preferIPv6Addresses", "system");
+        });
+
+        profile.getModules().set(List.of("cpw.mods:bootstraplauncher:1.1.2", "net.neoforged:JarJarFileSystems:0.4.0"));
+        return profile;
+    }
+}
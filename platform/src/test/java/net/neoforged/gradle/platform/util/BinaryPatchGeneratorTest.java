@@ -0,0 +1,144 @@
+package net.neoforged.gradle.platform.util;
+
+import com.nothome.delta.GDiffPatcher;
+import lzma.sdk.lzma.Decoder;
+import lzma.streams.LzmaInputStream;
+import net.minecraftforge.binarypatch.ConsoleTool;
+import net.minecraftforge.srgutils.IMappingBuilder;
+import net.minecraftforge.srgutils.IMappingFile;
+import net.neoforged.gradle.platform.services.ClassIndexService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Adler32;
+
+import static net.neoforged.gradle.utils.test.ZipFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryPatchGeneratorTest {
+
+    private static final byte[] CLEAN_FOO = "clean foo class".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PATCHED_FOO = "patched foo class, with more content".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BAR = "unchanged bar class".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ADDED = "added class".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    public Path directory;
+
+    private final ClassIndexService classIndex = new ClassIndexService() {
+        @Override
+        public BuildServiceParameters.None getParameters() {
+            return null;
+        }
+    };
+
+    @Test
+    public void patchesAreAppliedByTheBinaryPatcher() throws Exception {
+        final Path patches = generate();
+        final Path output = directory.resolve("output.jar");
+
+        ConsoleTool.main(new String[]{
+                "--clean", directory.resolve("clean.jar").toString(),
+                "--output", output.toString(),
+                "--apply", patches.toString()
+        });
+
+        final Map<String, byte[]> patched = readArchive(Files.readAllBytes(output));
+        assertArrayEquals(PATCHED_FOO, patched.get("a.class"));
+        assertArrayEquals(BAR, patched.get("b.class"));
+    }
+
+    @Test
+    public void patchArchiveIsAnLzmaCompressedArchiveOfFramedPatches() throws Exception {
+        final Map<String, byte[]> entries = readArchive(decompress(generate()));
+
+        //Unchanged classes do not get a patch, the entries are named after the mapped class.
+        assertEquals(Set.of("net.Foo.binpatch", "net.Added.binpatch"), entries.keySet());
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entries.get("net.Foo.binpatch")))) {
+            assertEquals(1, input.readByte());
+            assertEquals("a", input.readUTF());
+            assertEquals("net/Foo", input.readUTF());
+            assertTrue(input.readBoolean());
+
+            final Adler32 checksum = new Adler32();
+            checksum.update(CLEAN_FOO);
+            assertEquals((int) checksum.getValue(), input.readInt());
+
+            final byte[] diff = new byte[input.readInt()];
+            input.readFully(diff);
+            assertEquals(-1, input.read());
+            assertArrayEquals(PATCHED_FOO, new GDiffPatcher().patch(CLEAN_FOO, diff));
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entries.get("net.Added.binpatch")))) {
+            assertEquals(1, input.readByte());
+            assertEquals("c", input.readUTF());
+            assertEquals("net/Added", input.readUTF());
+            //Classes which do not exist in the clean jar have no checksum.
+            assertFalse(input.readBoolean());
+
+            final byte[] diff = new byte[input.readInt()];
+            input.readFully(diff);
+            assertEquals(-1, input.read());
+            assertArrayEquals(ADDED, new GDiffPatcher().patch(new byte[0], diff));
+        }
+    }
+
+    @Test
+    public void onlyClassesWithSourcePatchesArePatched() throws Exception {
+        final Path patches = generate(BinaryPatchGenerator.collectPatchedClasses(Set.of("net/Added.java.patch")));
+
+        assertEquals(Set.of("net.Added.binpatch"), readArchive(decompress(patches)).keySet());
+    }
+
+    private Path generate() throws IOException {
+        return generate(Collections.emptySet());
+    }
+
+    private Path generate(final Set<String> patchedClasses) throws IOException {
+        final Path clean = writeArchive(directory.resolve("clean.jar"), Map.of("a.class", CLEAN_FOO, "b.class", BAR));
+        final Path patched = writeArchive(directory.resolve("patched.jar"), Map.of("a.class", PATCHED_FOO, "b.class", BAR, "c.class", ADDED));
+
+        final IMappingBuilder builder = IMappingBuilder.create();
+        builder.addClass("a", "net/Foo");
+        builder.addClass("b", "net/Bar");
+        builder.addClass("c", "net/Added");
+        final Path mappings = directory.resolve("mappings.tsrg");
+        builder.build().write(mappings, IMappingFile.Format.TSRG2);
+
+        final Path output = directory.resolve("patches.lzma");
+        final BinaryPatchGenerator generator = new BinaryPatchGenerator(
+                classIndex.get(clean.toFile()),
+                classIndex.get(patched.toFile()),
+                IMappingFile.load(mappings.toFile())
+        );
+
+        //Diff every outer class on its own, like the shards of the task, to check the results merge cleanly.
+        final Map<String, byte[]> patches = new TreeMap<>();
+        for (String outer : generator.collectOuterClasses(patchedClasses)) {
+            patches.putAll(generator.createPatches(Set.of(outer)));
+        }
+        BinaryPatchGenerator.writePatchArchive(output, patches);
+        return output;
+    }
+
+    private static byte[] decompress(final Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             LzmaInputStream lzma = new LzmaInputStream(stream, new Decoder())) {
+            return lzma.readAllBytes();
+        }
+    }
+}
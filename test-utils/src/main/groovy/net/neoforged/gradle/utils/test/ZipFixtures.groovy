@@ -0,0 +1,103 @@
+package net.neoforged.gradle.utils.test
+
+import groovy.transform.CompileStatic
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipInputStream
+import java.util.zip.ZipOutputStream
+
+/**
+ * Writes and reads the zip archives used as fixtures by the unit tests.
+ * <p>
+ * Entries are always written in the order of their names, so that archives with the same entries are identical.
+ */
+@CompileStatic
+final class ZipFixtures {
+
+    private ZipFixtures() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated.")
+    }
+
+    /**
+     * Writes an archive with the given entries.
+     *
+     * @param file The archive to write.
+     * @param entries The names and contents of the entries.
+     * @return The written archive.
+     */
+    static Path writeArchive(final Path file, final Map<String, byte[]> entries) {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent())
+        }
+
+        try (OutputStream stream = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(stream)) {
+            for (Map.Entry<String, byte[]> entry : new TreeMap<String, byte[]>(entries).entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey()))
+                zip.write(entry.getValue())
+                zip.closeEntry()
+            }
+        }
+        return file
+    }
+
+    /**
+     * Writes an archive with the given entries, encoded as UTF-8.
+     *
+     * @param file The archive to write.
+     * @param entries The names and text contents of the entries.
+     * @return The written archive.
+     */
+    static Path writeTextArchive(final Path file, final Map<String, String> entries) {
+        final Map<String, byte[]> encoded = new TreeMap<>()
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            encoded.put(entry.getKey(), entry.getValue().getBytes(StandardCharsets.UTF_8))
+        }
+        return writeArchive(file, encoded)
+    }
+
+    /**
+     * Reads the file entries of the given archive.
+     *
+     * @param file The archive to read.
+     * @return The names and contents of the entries, sorted by name.
+     */
+    static Map<String, byte[]> readArchive(final Path file) {
+        return readArchive(Files.readAllBytes(file))
+    }
+
+    /**
+     * Reads the file entries of the given archive.
+     *
+     * @param archive The content of the archive.
+     * @return The names and contents of the entries, sorted by name.
+     */
+    static Map<String, byte[]> readArchive(final byte[] archive) {
+        final Map<String, byte[]> entries = new TreeMap<>()
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (!entry.isDirectory()) {
+                    entries.put(entry.getName(), zip.readAllBytes())
+                }
+            }
+        }
+        return entries
+    }
+
+    /**
+     * Reads the file entries of the given archive, decoded as UTF-8.
+     *
+     * @param file The archive to read.
+     * @return The names and text contents of the entries, sorted by name.
+     */
+    static Map<String, String> readTextArchive(final Path file) {
+        final Map<String, String> entries = new TreeMap<>()
+        for (Map.Entry<String, byte[]> entry : readArchive(file).entrySet()) {
+            entries.put(entry.getKey(), new String(entry.getValue(), StandardCharsets.UTF_8))
+        }
+        return entries
+    }
+}
@@ -8,6 +8,7 @@ import net.neoforged.gradle.dsl.common.runs.type.RunTypeManager;
 import net.neoforged.gradle.dsl.common.util.DistributionType;
 import net.neoforged.gradle.userdev.runtime.definition.UserDevRuntimeDefinition;
 import net.neoforged.gradle.userdev.runtime.extension.UserDevRuntimeExtension;
+import net.neoforged.gradle.userdev.services.UserDevConfigService;
 import net.neoforged.gradle.util.TransformerUtils;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.*;
@@ -37,10 +38,11 @@ public final class UserDevDependencyManager {
 
     private void registerUnitTestDependencyMapping(Project project) {
         final RunManager runs = project.getExtensions().getByType(RunManager.class);
+        //A single parser for all runs, the parsed sdk artifacts are shared through the build service.
+        final UserDevAdditionalTestDependenciesParser parser = new UserDevAdditionalTestDependenciesParser(project, UserDevConfigService.register(project));
         runs.configureAll(run -> {
             run.getUnitTestSources().whenSourceSetAdded(sourceSet -> {
                 final Configuration implementation = SourceSetUtils.getProject(sourceSet).getConfigurations().getByName(sourceSet.getImplementationConfigurationName());
-                final UserDevAdditionalTestDependenciesParser parser = new UserDevAdditionalTestDependenciesParser(project);
 
                 //Parse out all the additional test dependencies of a run
                 implementation.getDependencies().addAllLater(
@@ -64,7 +66,7 @@ public final class UserDevDependencyManager {
 
     private void registerRunTypeParser(Project project) {
         final RunTypeManager runTypes = project.getExtensions().getByType(RunTypeManager.class);
-        runTypes.registerParser(new UserDevRunTypeParser(project));
+        runTypes.registerParser(new UserDevRunTypeParser(project, UserDevConfigService.register(project)));
     }
 
     private void registerReplacementHandler(Project project) {
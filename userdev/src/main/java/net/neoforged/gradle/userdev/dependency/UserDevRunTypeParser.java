@@ -3,23 +3,24 @@ package net.neoforged.gradle.userdev.dependency;
 import net.neoforged.gradle.dsl.common.runs.type.RunType;
 import net.neoforged.gradle.dsl.common.runs.type.RunTypeManager;
 import net.neoforged.gradle.dsl.userdev.configurations.UserdevProfile;
+import net.neoforged.gradle.userdev.services.UserDevConfigService;
 import org.gradle.api.Project;
-import org.gradle.api.file.FileTree;
+import org.gradle.api.provider.Provider;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Stream;
 
 public class UserDevRunTypeParser implements RunTypeManager.Parser {
 
     private final Project project;
+    private final Provider<UserDevConfigService> configService;
 
-    public UserDevRunTypeParser(Project project) {
+    public UserDevRunTypeParser(Project project, Provider<UserDevConfigService> configService) {
         this.project = project;
+        this.configService = configService;
     }
 
     @Override
@@ -35,22 +36,10 @@ public class UserDevRunTypeParser implements RunTypeManager.Parser {
     }
 
     private @NotNull List<RunType> parseInternal(File file) {
-        final FileTree fileTree = file.getName().endsWith(".jar") || file.getName().endsWith(".zip") ?
-                project.zipTree(file) :
-                project.fileTree(file);
-        return fileTree.matching(pattern -> pattern.include("config.json"))
-                .getFiles()
-                .stream()
-                .flatMap(this::parseInternalFile)
-                .toList();
-    }
+        final byte[] config = configService.get().getConfig(file);
+        if (config == null)
+            return List.of();
 
-    private Stream<RunType> parseInternalFile(File file) {
-        try(final FileInputStream inputStream = new FileInputStream(file)) {
-            return UserdevProfile.get(project.getObjects(), inputStream)
-                    .getRunTypes().stream();
-        } catch (IOException e) {
-            return Stream.empty();
-        }
+        return List.copyOf(UserdevProfile.get(project.getObjects(), new ByteArrayInputStream(config)).getRunTypes());
     }
 }
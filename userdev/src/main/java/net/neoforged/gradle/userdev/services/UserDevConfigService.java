@@ -0,0 +1,135 @@
+package net.neoforged.gradle.userdev.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.neoforged.gradle.common.util.FileIdentity;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A build scoped index of the userdev configurations contained in the artifacts of the sdk classpath.
+ * <p>
+ * Every run, and every unit test source set, of every project looks up its run types and test dependencies in the same
+ * sdk artifacts, this service makes sure that each artifact is only opened, and its configuration only read, once per build.
+ */
+public abstract class UserDevConfigService implements BuildService<BuildServiceParameters.None> {
+
+    public static final String NAME = "UserDevConfigService";
+
+    private static final String CONFIG_NAME = "config.json";
+    private static final String TEST_LIBRARIES_KEY = "testLibraries";
+
+    private final Map<FileIdentity, Optional<byte[]>> configs = new ConcurrentHashMap<>();
+    private final Map<FileIdentity, List<String>> testLibraries = new ConcurrentHashMap<>();
+
+    public static Provider<UserDevConfigService> register(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                NAME,
+                UserDevConfigService.class,
+                spec -> {}
+        );
+    }
+
+    /**
+     * Gets the userdev configuration contained in the given artifact.
+     *
+     * @param file The artifact, either a jar, a zip, or a directory.
+     * @return The raw configuration, or {@code null} if the artifact does not contain one.
+     */
+    @Nullable
+    public byte[] getConfig(final File file) {
+        return configs.computeIfAbsent(FileIdentity.of(file), identity -> {
+            try {
+                return Optional.ofNullable(read(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read the userdev configuration from: " + file, e);
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Gets the coordinates of the additional test dependencies declared in the userdev configuration of the given artifact.
+     * <p>
+     * Only that single field is read from the configuration, no full profile is created for it.
+     *
+     * @param file The artifact, either a jar, a zip, or a directory.
+     * @return The coordinates, empty if the artifact does not contain a configuration or the configuration declares none.
+     */
+    public List<String> getAdditionalTestDependencies(final File file) {
+        return testLibraries.computeIfAbsent(FileIdentity.of(file), identity -> {
+            final byte[] config = getConfig(file);
+            if (config == null) {
+                return List.of();
+            }
+
+            try {
+                return readTestLibraries(config);
+            } catch (IOException | IllegalStateException e) {
+                throw new IllegalStateException("Failed to read the test libraries from the userdev configuration in: " + file, e);
+            }
+        });
+    }
+
+    private static List<String> readTestLibraries(final byte[] config) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(config), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals(TEST_LIBRARIES_KEY) || reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                final List<String> result = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    result.add(reader.nextString());
+                }
+                reader.endArray();
+                return List.copyOf(result);
+            }
+            return List.of();
+        }
+    }
+
+    @Nullable
+    private static byte[] read(final File file) throws IOException {
+        if (file.isDirectory()) {
+            final File config = new File(file, CONFIG_NAME);
+            return config.isFile() ? Files.readAllBytes(config.toPath()) : null;
+        }
+
+        if (!file.isFile() || !(file.getName().endsWith(".jar") || file.getName().endsWith(".zip"))) {
+            return null;
+        }
+
+        try (ZipFile zip = new ZipFile(file)) {
+            final ZipEntry entry = zip.getEntry(CONFIG_NAME);
+            if (entry == null) {
+                return null;
+            }
+
+            try (InputStream stream = zip.getInputStream(entry)) {
+                return stream.readAllBytes();
+            }
+        }
+    }
+}
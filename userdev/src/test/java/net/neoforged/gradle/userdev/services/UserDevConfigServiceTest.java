@@ -0,0 +1,94 @@
+package net.neoforged.gradle.userdev.services;
+
+import org.gradle.api.services.BuildServiceParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static net.neoforged.gradle.utils.test.ZipFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDevConfigServiceTest {
+
+    private static final String CONFIG = """
+            {
+              "spec": 2,
+              "libraries": ["net.neoforged:library:1.0"],
+              "runs": {"client": {"main": "net.neoforged.Main", "args": ["--launchTarget"]}},
+              "testLibraries": ["net.neoforged:test-library:1.0", "org.junit:junit:5.0"],
+              "modules": ["net.neoforged:module:1.0"]
+            }
+            """;
+
+    @TempDir
+    public Path directory;
+
+    private final UserDevConfigService service = new UserDevConfigService() {
+        @Override
+        public BuildServiceParameters.None getParameters() {
+            return null;
+        }
+    };
+
+    @Test
+    public void testLibrariesAreReadFromTheConfigInAJar() throws IOException {
+        final Path jar = writeTextArchive(directory.resolve("userdev.jar"), Map.of("config.json", CONFIG));
+
+        assertEquals(List.of("net.neoforged:test-library:1.0", "org.junit:junit:5.0"), service.getAdditionalTestDependencies(jar.toFile()));
+        assertArrayEquals(CONFIG.getBytes(StandardCharsets.UTF_8), service.getConfig(jar.toFile()));
+    }
+
+    @Test
+    public void testLibrariesAreReadFromTheConfigInADirectory() throws IOException {
+        final Path artifact = Files.createDirectories(directory.resolve("userdev"));
+        Files.writeString(artifact.resolve("config.json"), CONFIG);
+
+        assertEquals(List.of("net.neoforged:test-library:1.0", "org.junit:junit:5.0"), service.getAdditionalTestDependencies(artifact.toFile()));
+    }
+
+    @Test
+    public void configWithoutTestLibrariesHasNone() throws IOException {
+        final Path jar = writeTextArchive(directory.resolve("userdev.jar"), Map.of("config.json", "{\"spec\": 2, \"testLibraries\": null, \"libraries\": []}"));
+
+        assertEquals(List.of(), service.getAdditionalTestDependencies(jar.toFile()));
+    }
+
+    @Test
+    public void artifactWithoutConfigHasNoConfig() throws IOException {
+        final Path jar = writeTextArchive(directory.resolve("library.jar"), Map.of("a/Foo.class", "foo"));
+
+        assertNull(service.getConfig(jar.toFile()));
+        assertEquals(List.of(), service.getAdditionalTestDependencies(jar.toFile()));
+    }
+
+    @Test
+    public void missingArtifactHasNoConfig() {
+        final Path jar = directory.resolve("missing.jar");
+
+        assertNull(service.getConfig(jar.toFile()));
+        assertEquals(List.of(), service.getAdditionalTestDependencies(jar.toFile()));
+    }
+
+    @Test
+    public void rewrittenArtifactIsReadAgain() throws IOException {
+        final Path jar = writeTextArchive(directory.resolve("userdev.jar"), Map.of("config.json", "{\"testLibraries\": [\"net.neoforged:test-library:1.0\"]}"));
+        assertEquals(List.of("net.neoforged:test-library:1.0"), service.getAdditionalTestDependencies(jar.toFile()));
+
+        writeTextArchive(jar, Map.of("config.json", "{\"testLibraries\": [\"net.neoforged:test-library:2.0\", \"org.junit:junit:5.0\"]}"));
+
+        assertEquals(List.of("net.neoforged:test-library:2.0", "org.junit:junit:5.0"), service.getAdditionalTestDependencies(jar.toFile()));
+    }
+
+    @Test
+    public void brokenConfigIsReported() throws IOException {
+        final Path jar = writeTextArchive(directory.resolve("userdev.jar"), Map.of("config.json", "{\"testLibraries\": {}}"));
+
+        assertThrows(IllegalStateException.class, () -> service.getAdditionalTestDependencies(jar.toFile()));
+    }
+}
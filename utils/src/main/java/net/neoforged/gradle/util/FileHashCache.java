@@ -0,0 +1,290 @@
+package net.neoforged.gradle.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent cache of file hashes, keyed by the stat information of the file: (path, size, modification time, inode).
+ * <p>
+ * Files whose stat information did not change since they were last hashed are not read again.
+ * The cache is stored as an append only log, which is shared by all processes using the same store. New entries are
+ * appended when the cache is closed, and once the log holds more than {@link #MAX_ENTRIES} lines it is compacted to the
+ * most recently written entries whose files did not change. Appending and compacting both hold a lock on a file next
+ * to the log, so no process loses the entries another process wrote.
+ * <p>
+ * Files which have been modified very recently are never cached, since a modification within the resolution
+ * of the file system timestamps would otherwise go unnoticed.
+ * <p>
+ * There is no implicit, process wide instance. The owner of a cache passes it to the code which hashes files,
+ * see {@link HashFunction#hash(Path, FileHashCache)}.
+ */
+public final class FileHashCache implements Closeable {
+
+    /**
+     * Files modified within this window (in milliseconds) are considered racy and are not cached.
+     */
+    private static final long RACY_WINDOW = 2000L;
+
+    /**
+     * The amount of entries the log is compacted to, once it grows beyond it.
+     */
+    static final int MAX_ENTRIES = 50_000;
+
+    private static final String SEPARATOR = "\t";
+
+    private final Path store;
+    private final Path lock;
+    private final Map<Key, String> entries = new ConcurrentHashMap<>();
+    private final List<String> pending = new ArrayList<>();
+    private volatile boolean loaded = false;
+    private int storedLines = 0;
+
+    public FileHashCache(Path store) {
+        this.store = store.toAbsolutePath();
+        this.lock = this.store.resolveSibling(this.store.getFileName() + ".lock");
+    }
+
+    /**
+     * Gets the hash of the given file with the given function, only reading the file if its stat information changed.
+     *
+     * @param function The hash function to use.
+     * @param file The file to hash.
+     * @return The hash of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String hash(final HashFunction function, final Path file) throws IOException {
+        return get(function.name(), file, function::hashStreaming);
+    }
+
+    /**
+     * Gets a value derived from the content of the given file, only computing it if the stat information of the file changed.
+     * <p>
+     * This allows other per file information, like a classification of the file, to be cached next to the hashes.
+     *
+     * @param kind The kind of the value, must be unique for each way of computing a value and must not contain tabs.
+     * @param file The file to get the value for.
+     * @param computer The function computing the value from the file, the value must not contain line breaks.
+     * @return The value for the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String get(final String kind, final Path file, final Computer computer) throws IOException {
+        ensureLoaded();
+
+        final Key key = Key.of(kind, file);
+        final String known = entries.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        final String value = computer.compute(file);
+        if (System.currentTimeMillis() - key.lastModified > RACY_WINDOW && key.equals(Key.of(kind, file))) {
+            if (entries.put(key, value) == null) {
+                synchronized (pending) {
+                    pending.add(key.toLine(value));
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Appends the entries computed since the cache was loaded to the log, and compacts the log when it grew too large.
+     */
+    @Override
+    public void close() {
+        final List<String> lines;
+        synchronized (pending) {
+            lines = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(store.getParent());
+            try (FileChannel channel = FileChannel.open(lock, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                try (BufferedWriter writer = Files.newBufferedWriter(store, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (String line : lines) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+
+                if (storedLines + lines.size() > MAX_ENTRIES) {
+                    compact();
+                }
+            }
+        } catch (IOException ignored) {
+            //The cache is purely an optimization, if we can not write it we will just rehash next time.
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            load();
+            loaded = true;
+        }
+    }
+
+    private void load() {
+        final List<String> lines = read();
+        storedLines = lines.size();
+        for (String line : lines) {
+            final Map.Entry<Key, String> entry = parse(line);
+            if (entry != null) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log, must be called while holding the lock.
+     * The log is read again, so entries other processes appended since this cache was loaded are kept.
+     */
+    private void compact() throws IOException {
+        //Later lines win, and the insertion order of the map is the order in which the keys were last written.
+        final Map<Key, String> current = new LinkedHashMap<>();
+        for (String line : read()) {
+            final Map.Entry<Key, String> entry = parse(line);
+            if (entry != null) {
+                current.remove(entry.getKey());
+                current.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        final List<String> retained = new ArrayList<>(Math.min(current.size(), MAX_ENTRIES));
+        final List<Map.Entry<Key, String>> newestFirst = new ArrayList<>(current.entrySet());
+        for (int i = newestFirst.size() - 1; i >= 0 && retained.size() < MAX_ENTRIES; i--) {
+            final Key key = newestFirst.get(i).getKey();
+            if (isCurrent(key)) {
+                retained.add(key.toLine(newestFirst.get(i).getValue()));
+            }
+        }
+
+        final List<String> lines = new ArrayList<>(retained.size());
+        for (int i = retained.size() - 1; i >= 0; i--) {
+            lines.add(retained.get(i));
+        }
+
+        final Path temporary = FileUtils.temporaryPath(store.getParent(), "file-hashes");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        FileUtils.atomicMove(temporary, store);
+        storedLines = lines.size();
+    }
+
+    private List<String> read() {
+        try {
+            return Files.readAllLines(store, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return new ArrayList<>();
+        } catch (IOException e) {
+            //A broken cache is not fatal, we just start from scratch.
+            return new ArrayList<>();
+        }
+    }
+
+    @Nullable
+    private static Map.Entry<Key, String> parse(final String line) {
+        final String[] parts = line.split(SEPARATOR, 6);
+        if (parts.length != 6) {
+            return null;
+        }
+
+        try {
+            return Map.entry(new Key(parts[0], parts[5], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]), parts[4]);
+        } catch (NumberFormatException ignored) {
+            //Skip the corrupted line.
+            return null;
+        }
+    }
+
+    private static boolean isCurrent(final Key key) {
+        try {
+            return key.equals(Key.of(key.algorithm, Path.of(key.path)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static final class Key {
+        private final String algorithm;
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String inode;
+
+        private Key(String algorithm, String path, long size, long lastModified, String inode) {
+            this.algorithm = algorithm;
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.inode = inode;
+        }
+
+        private static Key of(final String algorithm, final Path file) throws IOException {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            final Object fileKey = attributes.fileKey();
+            return new Key(
+                    algorithm,
+                    file.toAbsolutePath().normalize().toString(),
+                    attributes.size(),
+                    attributes.lastModifiedTime().toMillis(),
+                    fileKey == null ? "" : fileKey.toString().replace(SEPARATOR, " ")
+            );
+        }
+
+        private String toLine(final String hash) {
+            return String.join(SEPARATOR, algorithm, Long.toString(size), Long.toString(lastModified), inode, hash, path);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return size == key.size && lastModified == key.lastModified && algorithm.equals(key.algorithm) && path.equals(key.path) && inode.equals(key.inode);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(algorithm, path, size, lastModified, inode);
+        }
+    }
+
+    /**
+     * Computes a value from the content of a file.
+     */
+    @FunctionalInterface
+    public interface Computer {
+        String compute(Path file) throws IOException;
+    }
+}
@@ -18,7 +18,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.file.*;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.function.Function;
@@ -126,6 +127,31 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Writes the given content to the given file, unless the file already holds exactly that content.
+     * The file is replaced atomically, so readers, like an IDE watching it, never see a partial file.
+     *
+     * @param file The file to write
+     * @param content The content of the file
+     * @return {@code true} if the file was written, {@code false} if it was already up to date
+     * @throws IOException If an I/O error occurs
+     */
+    public static boolean writeIfChanged(Path file, byte[] content) throws IOException {
+        if (Files.isRegularFile(file) && Files.size(file) == content.length && Arrays.equals(Files.readAllBytes(file), content)) {
+            return false;
+        }
+
+        final Path parent = Files.createDirectories(file.toAbsolutePath().getParent());
+        final Path temporary = temporaryPath(parent, file.getFileName().toString());
+        try {
+            Files.write(temporary, content);
+            atomicMove(temporary, file);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return true;
+    }
+
     /**
      * Atomically moves the given source file to the given destination file.
      * If the atomic move is not supported, the file will be moved normally.
@@ -233,20 +259,23 @@ public final class FileUtils {
     }
 
     /**
-     * Creates a csv file with the given lines in a zip file via the given zip output stream.
-     * If no lines are supplied, the csv file will not be created.
+     * Creates a csv file with the given header and rows in a zip file via the given zip output stream.
+     * The rows are written as they are iterated, if there are none the csv file will not be created.
      *
      * @param name The name of the csv file
-     * @param mappings The lines of the csv file
+     * @param header The header of the csv file
+     * @param rows The rows of the csv file
      * @param out The zip output stream
      * @throws IOException If an I/O error occurs
      */
-    public static void addCsvToZip(String name, List<String[]> mappings, ZipOutputStream out) throws IOException {
-        if (mappings.size() <= 1)
+    public static void addCsvToZip(String name, String[] header, Iterable<String[]> rows, ZipOutputStream out) throws IOException {
+        final Iterator<String[]> iterator = rows.iterator();
+        if (!iterator.hasNext())
             return;
         out.putNextEntry(getStableEntry(name));
         try (CsvWriter writer = CsvWriter.builder().lineDelimiter(LineDelimiter.LF).build(new UncloseableOutputStreamWriter(out))) {
-            mappings.forEach(writer::writeRow);
+            writer.writeRow(header);
+            iterator.forEachRemaining(writer::writeRow);
         }
         out.closeEntry();
     }
@@ -31,8 +31,6 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Locale;
 
-import org.apache.commons.io.IOUtils;
-
 import javax.annotation.Nullable;
 
 /**
@@ -50,6 +48,11 @@ public enum HashFunction {
     SHA256("SHA-256", 64),
     SHA512("SHA-512", 128);
 
+    /**
+     * The size of the buffer used to stream data into the digest.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final String algo;
     private final String pad;
 
@@ -100,7 +103,52 @@ public enum HashFunction {
      * @throws IOException If an I/O error occurs.
      */
     public String hash(Path file) throws IOException {
-        return hash(Files.readAllBytes(file));
+        return hashStreaming(file);
+    }
+
+    /**
+     * Hashes the given file, through the given cache if there is one.
+     * With a cache the file is only read when its stat information changed.
+     *
+     * @param file The file to hash.
+     * @param cache The cache to use, or {@code null} to always read the file.
+     * @return The hash of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String hash(File file, @Nullable FileHashCache cache) throws IOException {
+        return hash(file.toPath(), cache);
+    }
+
+    /**
+     * Hashes the given file, through the given cache if there is one.
+     * With a cache the file is only read when its stat information changed.
+     *
+     * @param file The file to hash.
+     * @param cache The cache to use, or {@code null} to always read the file.
+     * @return The hash of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String hash(Path file, @Nullable FileHashCache cache) throws IOException {
+        if (cache != null) {
+            return cache.hash(this, file);
+        }
+
+        return hashStreaming(file);
+    }
+
+    /**
+     * Hashes the given file, streaming its content through a fixed size buffer.
+     *
+     * @param file The file to hash.
+     * @return The hash of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    String hashStreaming(Path file) throws IOException {
+        final MessageDigest hash = get();
+        try (InputStream stream = Files.newInputStream(file)) {
+            update(hash, stream);
+        }
+        return pad(new BigInteger(1, hash.digest()).toString(16));
     }
 
     /**
@@ -116,7 +164,9 @@ public enum HashFunction {
         for (File file : files) {
             if (!file.exists())
                 continue;
-            hash.update(Files.readAllBytes(file.toPath()));
+            try (InputStream stream = Files.newInputStream(file.toPath())) {
+                update(hash, stream);
+            }
         }
         return pad(new BigInteger(1, hash.digest()).toString(16));
     }
@@ -139,7 +189,9 @@ public enum HashFunction {
      * @throws IOException If an I/O error occurs.
      */
     public String hash(InputStream stream) throws IOException {
-        return hash(IOUtils.toByteArray(stream));
+        final MessageDigest hash = get();
+        update(hash, stream);
+        return pad(new BigInteger(1, hash.digest()).toString(16));
     }
 
     /**
@@ -152,6 +204,21 @@ public enum HashFunction {
         return pad(new BigInteger(1, get().digest(data)).toString(16));
     }
 
+    /**
+     * Streams the given input into the given digest.
+     *
+     * @param digest The digest to update.
+     * @param stream The stream to read.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void update(MessageDigest digest, InputStream stream) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+    }
+
     /**
      * Pads the hash with leading zeroes, so that it matches the length of the hash function.
      *
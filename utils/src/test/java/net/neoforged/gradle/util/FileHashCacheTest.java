@@ -0,0 +1,92 @@
+package net.neoforged.gradle.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileHashCacheTest {
+
+    @TempDir
+    public Path directory;
+
+    @Test
+    public void unchangedFilesAreNotHashedAgainByALaterCache() throws IOException {
+        final Path store = directory.resolve("hashes.txt");
+        final Path file = createOldFile("file.txt", "content");
+        final AtomicInteger computations = new AtomicInteger();
+
+        final FileHashCache first = new FileHashCache(store);
+        assertEquals("value", first.get("test", file, path -> count(computations)));
+        first.close();
+
+        final FileHashCache second = new FileHashCache(store);
+        assertEquals("value", second.get("test", file, path -> count(computations)));
+        second.close();
+
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    public void entriesOfCachesSharingAStoreAreAllKept() throws IOException {
+        final Path store = directory.resolve("hashes.txt");
+        final Path left = createOldFile("left.txt", "left");
+        final Path right = createOldFile("right.txt", "right");
+
+        //Both caches are loaded before either of them writes, like two daemons running at the same time.
+        final FileHashCache first = new FileHashCache(store);
+        final FileHashCache second = new FileHashCache(store);
+        first.get("test", left, path -> "left");
+        second.get("test", right, path -> "right");
+        first.close();
+        second.close();
+
+        final AtomicInteger computations = new AtomicInteger();
+        final FileHashCache reader = new FileHashCache(store);
+        reader.get("test", left, path -> count(computations));
+        reader.get("test", right, path -> count(computations));
+
+        assertEquals(0, computations.get());
+    }
+
+    @Test
+    public void theLogIsCompactedOnceItExceedsTheMaximumSize() throws IOException {
+        final Path store = directory.resolve("hashes.txt");
+        final List<String> stale = new ArrayList<>(FileHashCache.MAX_ENTRIES);
+        for (int i = 0; i < FileHashCache.MAX_ENTRIES; i++) {
+            stale.add(String.join("\t", "test", "1", "1", "", "value", directory.resolve("missing-" + i).toString()));
+        }
+        Files.write(store, stale, StandardCharsets.UTF_8);
+
+        final Path file = createOldFile("file.txt", "content");
+        final FileHashCache cache = new FileHashCache(store);
+        cache.get("test", file, path -> "value");
+        cache.close();
+
+        final List<String> lines = Files.readAllLines(store, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith(file.toAbsolutePath().normalize().toString()));
+    }
+
+    private Path createOldFile(final String name, final String content) throws IOException {
+        final Path file = Files.writeString(directory.resolve(name), content);
+        //Recently modified files are never cached.
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000L));
+        return file;
+    }
+
+    private static String count(final AtomicInteger computations) {
+        computations.incrementAndGet();
+        return "value";
+    }
+}
@@ -1,9 +1,8 @@
 package net.neoforged.gradle.vanilla.runtime.tasks;
 
-import net.neoforged.gradle.util.DelegatingFileTreeVisitor;
-import net.neoforged.gradle.util.ZipBuildingFileTreeVisitor;
 import net.neoforged.gradle.common.runtime.tasks.DefaultRuntime;
-import org.gradle.api.file.FileVisitDetails;
+import net.neoforged.gradle.common.util.ZipCopyUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.InputFile;
@@ -12,63 +11,53 @@ import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.zip.ZipOutputStream;
+import java.util.regex.Pattern;
 
+/**
+ * Strips the bundled libraries and the manifest from a minecraft jar.
+ * <p>
+ * The retained entries are copied with their original compressed bytes and in their original order,
+ * nothing is inflated or deflated again.
+ */
 @CacheableTask
 public abstract class CleanArtifact extends DefaultRuntime {
 
+    /**
+     * Matches the entries in directories which belong to minecraft itself.
+     */
+    private static final Pattern MINECRAFT_ENTRY = Pattern.compile("^(?:assets/|data/|net/|META-INF/)|mojang|minecraft");
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
     @TaskAction
     public void doClean() {
         try {
             final File outputJar = this.ensureFileWorkspaceReady(getOutput());
-            final FileOutputStream fileOutputStream = new FileOutputStream(outputJar);
-            final ZipOutputStream outputZipStream = new ZipOutputStream(fileOutputStream);
-
-            final DelegatingFileTreeVisitor visitor = new DelegatingFileTreeVisitor(new ZipBuildingFileTreeVisitor(outputZipStream)) {
-
-                @Override
-                public void visitDir(FileVisitDetails fileVisitDetails) {
-                    if (!fileVisitDetails.getRelativePath().getPathString().startsWith("assets/") &&
-                            !fileVisitDetails.getRelativePath().getPathString().startsWith("data/") &&
-                            !fileVisitDetails.getRelativePath().getPathString().startsWith("net/") &&
-                            !fileVisitDetails.getRelativePath().getPathString().startsWith("META-INF/") &&
-                            !fileVisitDetails.getRelativePath().getPathString().contains("mojang") &&
-                            !fileVisitDetails.getRelativePath().getPathString().contains("minecraft")) {
-                        return;
-                    }
-
-                    super.visitDir(fileVisitDetails);
-                }
+            ZipCopyUtils.copyRaw(getInput().get().getAsFile(), outputJar, CleanArtifact::shouldRetain);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create cleaned output jar", e);
+        }
+    }
 
-                @Override
-                public void visitFile(FileVisitDetails fileVisitDetails) {
-                    if (fileVisitDetails.getRelativePath().getPathString().equals("META-INF/MANIFEST.MF")) {
-                        return;
-                    }
+    private static boolean shouldRetain(final ZipArchiveEntry entry) {
+        final String name = entry.getName();
+        if (name.equals(MANIFEST)) {
+            return false;
+        }
 
-                    if (fileVisitDetails.getRelativePath().getPathString().contains("/")) {
-                        //Is in directory. Only leave:
-                        if (!fileVisitDetails.getRelativePath().getPathString().startsWith("assets/") &&
-                                !fileVisitDetails.getRelativePath().getPathString().startsWith("data/") &&
-                                !fileVisitDetails.getRelativePath().getPathString().startsWith("net/") &&
-                                !fileVisitDetails.getRelativePath().getPathString().startsWith("META-INF/") &&
-                                !fileVisitDetails.getRelativePath().getPathString().contains("mojang") &&
-                                !fileVisitDetails.getRelativePath().getPathString().contains("minecraft")) {
-                            return;
-                        }
-                    }
+        //Directories are matched by their path without the trailing slash, so the top level assets/, data/, net/ and
+        //META-INF/ directory entries themselves are not retained, only the directories and files inside them.
+        if (entry.isDirectory()) {
+            return MINECRAFT_ENTRY.matcher(name.endsWith("/") ? name.substring(0, name.length() - 1) : name).find();
+        }
 
-                    super.visitFile(fileVisitDetails);
-                }
-            };
-            getArchiveOperations().zipTree(getInput().get()).visit(visitor);
-            outputZipStream.close();
-            fileOutputStream.close();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create cleaned output jar", e);
+        //Files in the root are always retained, everything in a directory only if it belongs to minecraft.
+        if (name.indexOf('/') == -1) {
+            return true;
         }
+
+        return MINECRAFT_ENTRY.matcher(name).find();
     }
 
     @InputFile